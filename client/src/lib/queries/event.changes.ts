@@ -0,0 +1,80 @@
+import { useQueryClient } from "@tanstack/react-query";
+import { useEffect } from "react";
+
+type ChangedEvent = { id: number; version: number } & Record<string, unknown>;
+
+type EventChange = {
+  seq: number;
+  type: "insert" | "update" | "delete";
+  id: number;
+  event: ChangedEvent | null;
+};
+
+type ListData = { status: string; data: ChangedEvent[] };
+type EventData = { status: string; data: ChangedEvent };
+
+/**
+ * Subscribes to the server's change feed and patches the cached ["events"] and
+ * ["event", id] queries with each delta instead of refetching. Inserts and
+ * `reset` (the server could not deliver every change) still invalidate the list.
+ * EventSource reconnects by itself and resumes from the last event id.
+ */
+export function useEventChanges() {
+  const queryClient = useQueryClient();
+
+  useEffect(() => {
+    const source = new EventSource(
+      `${import.meta.env.VITE_API_V1_URL}/events/changes`
+    );
+
+    const isNewer = (cached: ChangedEvent | undefined, change: EventChange) =>
+      !cached || !change.event || change.event.version > cached.version;
+
+    const onUpdate = (message: MessageEvent<string>) => {
+      const change: EventChange = JSON.parse(message.data);
+      if (!change.event) {
+        return;
+      }
+
+      queryClient.setQueryData<ListData>(["events"], (list) =>
+        list && Array.isArray(list.data)
+          ? {
+              ...list,
+              data: list.data.map((event) =>
+                event.id === change.id && isNewer(event, change)
+                  ? change.event!
+                  : event
+              ),
+            }
+          : list
+      );
+      queryClient.setQueryData<EventData>(["event", change.id], (single) =>
+        single && isNewer(single.data, change)
+          ? { ...single, data: change.event! }
+          : single
+      );
+    };
+
+    const onDelete = (message: MessageEvent<string>) => {
+      const change: EventChange = JSON.parse(message.data);
+
+      queryClient.setQueryData<ListData>(["events"], (list) =>
+        list && Array.isArray(list.data)
+          ? { ...list, data: list.data.filter((event) => event.id !== change.id) }
+          : list
+      );
+      queryClient.removeQueries({ queryKey: ["event", change.id] });
+    };
+
+    const onInvalidate = () => {
+      queryClient.invalidateQueries({ queryKey: ["events"] });
+    };
+
+    source.addEventListener("update", onUpdate);
+    source.addEventListener("delete", onDelete);
+    source.addEventListener("insert", onInvalidate);
+    source.addEventListener("reset", onInvalidate);
+
+    return () => source.close();
+  }, [queryClient]);
+}
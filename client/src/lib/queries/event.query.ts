@@ -52,7 +52,7 @@ export function useEventsQuery(options?: QueryOptions) {
           return { status: "error", errors: ["No data"], data: [] } as const;
         }
 
-        return { status: "success", data } as const;
+        return { status: "success", data: data.items } as const;
       } catch (error) {
         console.error(error);
         return {
@@ -1,5 +1,6 @@
 import { button } from "@/components/ui/button";
 import { useEventsQuery } from "@/lib/queries/event.query";
+import { useEventChanges } from "@/lib/queries/event.changes";
 import { cn, formatDate, formatDateInput } from "@/lib/utils";
 import { useQuery, useQueryClient } from "@tanstack/react-query";
 import { ClockIcon, PencilIcon, SettingsIcon, XIcon } from "lucide-react";
@@ -37,6 +38,7 @@ export function HomePage() {
   // @TODO add types on queryOptions return types
   /* eslint-disable  @typescript-eslint/no-explicit-any */
   const result: any = useQuery({ ...useEventsQuery() });
+  useEventChanges();
 
   if (result.isLoading) {
     return <p>Loading...</p>;
@@ -0,0 +1,196 @@
+package so.akira.events.admission;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import so.akira.events.logging.RateLimitedLogger;
+import so.akira.events.models.StatusResponse;
+
+/**
+ * Admission control in front of EventController, so overload is answered
+ * right away instead of piling requests up on Tomcat's threads.
+ *
+ * Every client (by remote address) has a token bucket of {@code client-burst}
+ * requests refilled at {@code client-rate} per second; past that it gets a
+ * 429. Reads (GET, HEAD) and writes then each have their own {@link AimdLimit}
+ * on requests in flight, so a saturated writer can't starve cached reads; a
+ * request over the limit gets a 503. Both carry a Retry-After. The limits adapt
+ * to the latency of the requests they let through, measured around the
+ * handler, which for these endpoints is the time spent in the repository or
+ * waiting on the writer.
+ *
+ * Streams (the SSE change feed, the export) only go through the token bucket:
+ * they stay open far longer than any target latency and would otherwise read
+ * as overload.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final RateLimitedLogger logger = RateLimitedLogger.getLogger(AdmissionInterceptor.class);
+
+    private static final String ADMITTED = AdmissionInterceptor.class.getName() + ".admitted";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final double clientRate;
+    private final double clientBurst;
+    private final AimdLimit readLimit;
+    private final AimdLimit writeLimit;
+    private final Cache<String, TokenBucket> buckets;
+
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    public AdmissionInterceptor(ObjectMapper objectMapper,
+            @Value("${events.admission.enabled:true}") boolean enabled,
+            @Value("${events.admission.client-rate:100}") double clientRate,
+            @Value("${events.admission.client-burst:200}") double clientBurst,
+            @Value("${events.admission.max-clients:100000}") long maxClients,
+            @Value("${events.admission.read.initial-limit:64}") int readInitialLimit,
+            @Value("${events.admission.read.min-limit:8}") int readMinLimit,
+            @Value("${events.admission.read.max-limit:512}") int readMaxLimit,
+            @Value("${events.admission.read.target-latency-ms:50}") long readTargetMs,
+            @Value("${events.admission.write.initial-limit:32}") int writeInitialLimit,
+            @Value("${events.admission.write.min-limit:4}") int writeMinLimit,
+            @Value("${events.admission.write.max-limit:256}") int writeMaxLimit,
+            @Value("${events.admission.write.target-latency-ms:200}") long writeTargetMs,
+            @Value("${events.admission.backoff:0.9}") double backoff) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.readLimit = new AimdLimit(readInitialLimit, readMinLimit, readMaxLimit,
+                TimeUnit.MILLISECONDS.toNanos(readTargetMs), backoff);
+        this.writeLimit = new AimdLimit(writeInitialLimit, writeMinLimit, writeMaxLimit,
+                TimeUnit.MILLISECONDS.toNanos(writeTargetMs), backoff);
+        // A bucket left alone long enough is full again, so forgetting it changes nothing
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofSeconds((long) Math.ceil(clientBurst / clientRate) + 1))
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!enabled || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(request.getRemoteAddr(), client -> new TokenBucket(clientBurst, clientRate, now))
+                .tryTake(now);
+        if (waitNanos > 0) {
+            throttled.incrementAndGet();
+            logger.debug("Throttled {} {} from {}", request.getMethod(), request.getRequestURI(),
+                    request.getRemoteAddr());
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Too many requests, retry later");
+            return false;
+        }
+
+        if (isStream(handlerMethod)) {
+            return true;
+        }
+
+        boolean read = isRead(request);
+        AimdLimit limit = read ? readLimit : writeLimit;
+        if (!limit.tryAcquire()) {
+            shed.incrementAndGet();
+            logger.warn("Shedding {} requests over the concurrency limit of {}", read ? "read" : "write",
+                    limit.getLimit());
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+                    "Server is overloaded, retry later");
+            return false;
+        }
+        request.setAttribute(ADMITTED, new Admitted(limit, now));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(ADMITTED) instanceof Admitted admitted) {
+            request.removeAttribute(ADMITTED);
+            long now = System.nanoTime();
+            admitted.limit.release(now - admitted.startedAt, now);
+        }
+    }
+
+    public int getReadLimit() {
+        return readLimit.getLimit();
+    }
+
+    public int getReadsInFlight() {
+        return readLimit.getInFlight();
+    }
+
+    public int getWriteLimit() {
+        return writeLimit.getLimit();
+    }
+
+    public int getWritesInFlight() {
+        return writeLimit.getInFlight();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getShed() {
+        return shed.get();
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        // Whole seconds, rounded up
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new StatusResponse("error", message));
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    private static boolean isStream(HandlerMethod handlerMethod) {
+        ResolvableType returnType = ResolvableType.forMethodReturnType(handlerMethod.getMethod());
+        Class<?> body = ResponseEntity.class.equals(returnType.resolve())
+                ? returnType.getGeneric(0).resolve()
+                : returnType.resolve();
+        return body != null
+                && (SseEmitter.class.isAssignableFrom(body) || StreamingResponseBody.class.isAssignableFrom(body));
+    }
+
+    private static class Admitted {
+        private final AimdLimit limit;
+        private final long startedAt;
+
+        Admitted(AimdLimit limit, long startedAt) {
+            this.limit = limit;
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package so.akira.events.admission;
+
+/**
+ * Concurrency limit that adapts to latency, additive increase / multiplicative
+ * decrease. Every request finishing within {@code targetNanos} while the limit
+ * is in use grows it by {@code 1 / limit}, so about one slot per limit's worth
+ * of requests. A slower one shrinks it by {@code backoff}, at most once per
+ * target latency so a burst of slow requests counts as one signal.
+ */
+class AimdLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final double backoff;
+
+    private double limit;
+    private int inFlight;
+    private long decreasedAt;
+
+    AimdLimit(int initialLimit, int minLimit, int maxLimit, long targetNanos, double backoff) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetNanos;
+        this.backoff = backoff;
+        this.limit = initialLimit;
+        this.decreasedAt = System.nanoTime() - targetNanos;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    synchronized void release(long latencyNanos, long now) {
+        int used = inFlight--;
+        if (latencyNanos > targetNanos) {
+            if (now - decreasedAt >= targetNanos) {
+                limit = Math.max(minLimit, limit * backoff);
+                decreasedAt = now;
+            }
+        } else if (used * 2 >= limit) {
+            // A limit nobody comes close to says nothing about how much more would fit
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
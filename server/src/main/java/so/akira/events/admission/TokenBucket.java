@@ -0,0 +1,35 @@
+package so.akira.events.admission;
+
+/**
+ * Request budget of one client: up to {@code capacity} tokens, refilled at
+ * {@code ratePerSecond}.
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double capacity, double ratePerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token. Returns 0 if there was one, otherwise how many nanoseconds
+     * until there will be.
+     */
+    synchronized long tryTake(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,43 @@
+package so.akira.events.backup;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * One backup in a {@link BackupStore}: the database copy and the SHA-256 it
+ * had when it was taken, kept next to it in {@code <file>.sha256}.
+ */
+public class BackupFile {
+    private final Path path;
+    private final Instant takenAt;
+    private final String sha256;
+    private final long sizeBytes;
+
+    public BackupFile(Path path, Instant takenAt, String sha256, long sizeBytes) {
+        this.path = path;
+        this.takenAt = takenAt;
+        this.sha256 = sha256;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String toString() {
+        return "BackupFile{path=" + path + ", takenAt=" + takenAt + ", sha256=" + sha256 + ", sizeBytes="
+                + sizeBytes + "}";
+    }
+}
@@ -0,0 +1,143 @@
+package so.akira.events.backup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import so.akira.events.config.DataSourceConfig;
+
+/**
+ * Backs the live database up into a {@link BackupStore} every
+ * {@code interval-ms}, through a connection of the reader pool so the writer
+ * never waits on it, then deletes all but the newest {@code retain} backups.
+ *
+ * Restoring is {@link DataSourceConfig}'s job, on startup before the pools
+ * open, when {@code events.backup.restore-on-startup} is set.
+ */
+@Component
+public class BackupScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupScheduler.class);
+
+    private final DataSource readerDataSource;
+    private final BackupStore store;
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int retain;
+
+    private final AtomicLong backups = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastBackupAt;
+    private volatile long lastBackupBytes;
+    private volatile long lastBackupMs;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public BackupScheduler(@Qualifier(DataSourceConfig.READER) DataSource readerDataSource,
+            @Value("${events.backup.directory:data/backups}") String directory,
+            @Value("${events.backup.enabled:true}") boolean enabled,
+            @Value("${events.backup.interval-ms:3600000}") long intervalMs,
+            @Value("${events.backup.retain:24}") int retain) {
+        this.readerDataSource = readerDataSource;
+        this.store = new BackupStore(Path.of(directory));
+        this.enabled = enabled;
+        this.intervalMs = intervalMs;
+        this.retain = retain;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "event-backup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public BackupStore getStore() {
+        return store;
+    }
+
+    public long getBackups() {
+        return backups.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getLastBackupAt() {
+        return lastBackupAt;
+    }
+
+    public long getLastBackupBytes() {
+        return lastBackupBytes;
+    }
+
+    public long getLastBackupMs() {
+        return lastBackupMs;
+    }
+
+    /**
+     * Takes a backup now, then rotates.
+     */
+    public synchronized BackupFile backup() throws IOException, SQLException {
+        long startedMs = System.currentTimeMillis();
+        BackupFile backup;
+        try (Connection connection = readerDataSource.getConnection()) {
+            backup = store.backup(connection);
+        } catch (IOException | SQLException | RuntimeException e) {
+            failures.incrementAndGet();
+            throw e;
+        }
+        int rotated = store.rotate(retain);
+
+        backups.incrementAndGet();
+        lastBackupAt = backup.getTakenAt().getEpochSecond();
+        lastBackupBytes = backup.getSizeBytes();
+        lastBackupMs = System.currentTimeMillis() - startedMs;
+        logger.info("Backed up {} KiB to {} in {} ms, sha256 {}, rotated out {} old backups",
+                backup.getSizeBytes() / 1024, backup.getPath(), lastBackupMs, backup.getSha256(), rotated);
+        return backup;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMs);
+                backup();
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException | SQLException | RuntimeException e) {
+                logger.error("Error backing up the database", e);
+            }
+        }
+    }
+}
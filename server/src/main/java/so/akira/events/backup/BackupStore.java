@@ -0,0 +1,244 @@
+package so.akira.events.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import so.akira.events.config.DataSourceConfig;
+
+/**
+ * A directory of database backups, {@code events-<UTC time>.db} each with its
+ * SHA-256 in {@code events-<UTC time>.db.sha256} (sha256sum format).
+ *
+ * Backups are taken with {@code VACUUM INTO} from a connection to the live
+ * database. It copies inside a single read transaction, so the result is
+ * always one consistent version of the database, and in WAL mode that reader
+ * never blocks the writer. Unlike the page-stepped backup API, writes landing
+ * during the copy can't make it start over, so a busy database still gets
+ * backed up in one pass. The copy is written under a temporary name, switched
+ * back to rollback journaling so it is a single self-contained file,
+ * quick-checked and hashed before it gets its final name, so a half-written
+ * backup never looks like a real one.
+ *
+ * Not a Spring bean: {@link so.akira.events.config.DataSourceConfig} needs
+ * it to restore before any pool opens the database.
+ */
+public class BackupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupStore.class);
+
+    private static final String PREFIX = "events-";
+    private static final String SUFFIX = ".db";
+    private static final String CHECKSUM_SUFFIX = ".sha256";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+
+    public BackupStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Copies the database {@code source} is connected to into a new backup.
+     */
+    public BackupFile backup(Connection source) throws IOException, SQLException {
+        Files.createDirectories(directory);
+        Instant takenAt = Instant.now();
+        Path path = directory.resolve(PREFIX + TIMESTAMP.format(takenAt) + SUFFIX);
+        Path temp = Path.of(path + TEMP_SUFFIX);
+        Files.deleteIfExists(temp);
+
+        try {
+            try (PreparedStatement vacuum = source.prepareStatement("VACUUM INTO ?")) {
+                vacuum.setString(1, temp.toString());
+                vacuum.execute();
+            }
+
+            try (Connection copy = open(temp, false); Statement statement = copy.createStatement()) {
+                statement.execute("PRAGMA journal_mode = DELETE");
+                String check = quickCheck(statement);
+                if (!"ok".equals(check)) {
+                    throw new SQLException("Backup " + temp + " failed its quick_check: " + check);
+                }
+            }
+
+            String sha256 = sha256(temp);
+            long size = Files.size(temp);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            Path checksum = checksumOf(path);
+            Path checksumTemp = Path.of(checksum + TEMP_SUFFIX);
+            Files.writeString(checksumTemp, sha256 + "  " + path.getFileName() + "\n", StandardCharsets.UTF_8);
+            Files.move(checksumTemp, checksum, StandardCopyOption.ATOMIC_MOVE);
+            return new BackupFile(path, takenAt, sha256, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Complete backups (with a checksum file), newest first.
+     */
+    public List<BackupFile> list() throws IOException {
+        List<BackupFile> backups = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return backups;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : files) {
+                Path checksum = checksumOf(path);
+                Optional<Instant> takenAt = takenAt(path);
+                if (takenAt.isEmpty() || !Files.exists(checksum)) {
+                    continue;
+                }
+                String sha256 = Files.readString(checksum, StandardCharsets.UTF_8).split("\\s+", 2)[0];
+                backups.add(new BackupFile(path, takenAt.get(), sha256, Files.size(path)));
+            }
+        }
+        backups.sort(Comparator.comparing(BackupFile::getTakenAt).reversed());
+        return backups;
+    }
+
+    /**
+     * Whether the backup still hashes to the checksum recorded when it was taken.
+     */
+    public boolean verify(BackupFile backup) {
+        try {
+            return sha256(backup.getPath()).equals(backup.getSha256());
+        } catch (IOException e) {
+            logger.warn("Could not read backup {}", backup.getPath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes all but the newest {@code retain} backups. Returns how many went.
+     */
+    public int rotate(int retain) throws IOException {
+        List<BackupFile> backups = list();
+        int deleted = 0;
+        for (BackupFile backup : backups.subList(Math.min(retain, backups.size()), backups.size())) {
+            Files.deleteIfExists(checksumOf(backup.getPath()));
+            Files.deleteIfExists(backup.getPath());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Replaces {@code database} with the newest backup that verifies, unless the
+     * database is there and passes a quick_check. Backups whose checksum doesn't
+     * match are skipped with a warning. Only safe while nothing has the database
+     * open.
+     */
+    public Optional<BackupFile> restoreIfNeeded(Path database) throws IOException {
+        if (isHealthy(database)) {
+            return Optional.empty();
+        }
+
+        for (BackupFile backup : list()) {
+            if (!verify(backup)) {
+                logger.warn("Skipping backup {}, it no longer matches its checksum", backup.getPath());
+                continue;
+            }
+
+            Path temp = Path.of(database + TEMP_SUFFIX);
+            Files.createDirectories(database.toAbsolutePath().getParent());
+            Files.copy(backup.getPath(), temp, StandardCopyOption.REPLACE_EXISTING);
+            // A WAL left behind by the old database would be replayed onto the restored one
+            Files.deleteIfExists(Path.of(database + "-wal"));
+            Files.deleteIfExists(Path.of(database + "-shm"));
+            Files.move(temp, database, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Restored {} from backup {}", database, backup.getPath());
+            return Optional.of(backup);
+        }
+
+        logger.warn("{} is missing or damaged and there is no verified backup to restore", database);
+        return Optional.empty();
+    }
+
+    /**
+     * Whether the file is a database that passes a quick_check.
+     */
+    public static boolean isHealthy(Path database) {
+        if (!Files.isRegularFile(database)) {
+            return false;
+        }
+        try (Connection connection = open(database, true); Statement statement = connection.createStatement()) {
+            return "ok".equals(quickCheck(statement));
+        } catch (SQLException e) {
+            logger.warn("{} is not a readable database: {}", database, e.getMessage());
+            return false;
+        }
+    }
+
+    private static Connection open(Path database, boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        return DriverManager.getConnection(DataSourceConfig.url(database.toString()), config.toProperties());
+    }
+
+    private static String quickCheck(Statement statement) throws SQLException {
+        try (ResultSet result = statement.executeQuery("PRAGMA quick_check")) {
+            return result.next() ? result.getString(1) : null;
+        }
+    }
+
+    private static Path checksumOf(Path backup) {
+        return Path.of(backup + CHECKSUM_SUFFIX);
+    }
+
+    private static Optional<Instant> takenAt(Path backup) {
+        String name = backup.getFileName().toString();
+        try {
+            return Optional.of(TIMESTAMP.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()),
+                    Instant::from));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+    }
+
+    static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            for (int read; (read = in.read(buffer)) != -1;) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package so.akira.events.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import so.akira.events.models.Event;
+
+/**
+ * Bounded read-through cache of events by id.
+ *
+ * Loads run inside the cache's per-key compute, and {@link #invalidate(int)}
+ * waits for an in-flight load of the same key. So as long as writers
+ * invalidate after their change is committed, a value read before the commit
+ * can never outlive it.
+ */
+@Component
+public class EventCache {
+
+    private final Cache<Integer, Event> cache;
+
+    @Autowired
+    public EventCache(@Value("${events.cache.maximum-size:10000}") long maximumSize,
+            @Value("${events.cache.ttl-seconds:300}") long ttlSeconds) {
+        this(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+    }
+
+    EventCache(Caffeine<Object, Object> builder) {
+        this.cache = builder.build();
+    }
+
+    /**
+     * Returns the cached event or loads it. Exceptions from the loader (e.g. a
+     * miss in the repository) propagate and nothing is cached.
+     */
+    public Event get(int id, IntFunction<Event> loader) {
+        return cache.get(id, key -> loader.apply(key));
+    }
+
+    /**
+     * Like {@link #get}, for a loader that reports a miss as empty. Misses are
+     * not cached.
+     */
+    public Optional<Event> find(int id, IntFunction<Optional<Event>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
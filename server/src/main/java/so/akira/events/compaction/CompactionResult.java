@@ -0,0 +1,51 @@
+package so.akira.events.compaction;
+
+/**
+ * Outcome of one {@link EventCompactor} pass. Page counts are of the main
+ * database file, in pages of {@code pageSize} bytes.
+ */
+public class CompactionResult {
+    private final int purged;
+    private final int expiredKeys;
+    private final long pagesBefore;
+    private final long pagesAfter;
+    private final long pageSize;
+
+    public CompactionResult(int purged, int expiredKeys, long pagesBefore, long pagesAfter, long pageSize) {
+        this.purged = purged;
+        this.expiredKeys = expiredKeys;
+        this.pagesBefore = pagesBefore;
+        this.pagesAfter = pagesAfter;
+        this.pageSize = pageSize;
+    }
+
+    public int getPurged() {
+        return purged;
+    }
+
+    public int getExpiredKeys() {
+        return expiredKeys;
+    }
+
+    public long getPagesBefore() {
+        return pagesBefore;
+    }
+
+    public long getPagesAfter() {
+        return pagesAfter;
+    }
+
+    public long getReclaimedPages() {
+        return Math.max(pagesBefore - pagesAfter, 0);
+    }
+
+    public long getReclaimedBytes() {
+        return getReclaimedPages() * pageSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactionResult{purged=" + purged + ", expiredKeys=" + expiredKeys + ", pagesBefore=" + pagesBefore + ", pagesAfter=" + pagesAfter
+                + ", pageSize=" + pageSize + "}";
+    }
+}
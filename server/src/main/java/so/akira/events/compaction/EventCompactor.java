@@ -0,0 +1,201 @@
+package so.akira.events.compaction;
+
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import so.akira.events.config.DataSourceConfig;
+import so.akira.events.idempotency.IdempotencyStore;
+import so.akira.events.repositories.EventRepository;
+import so.akira.events.writer.EventWriter;
+
+/**
+ * Purges soft-deleted events and gives the freed pages back to the file system.
+ *
+ * Every {@code interval-ms} the compactor checks whether the server is quiet
+ * (nothing queued for the {@link EventWriter} and at most {@code quiet-writes}
+ * writes since the last check). If so, it purges tombstones older than
+ * {@code retention-seconds} in batches of {@code batch-size}, each batch its
+ * own write through the writer, backing off as soon as requests queue up
+ * again. Idempotency keys past their TTL go the same way. It then runs
+ * {@code PRAGMA incremental_vacuum} for at most {@code max-vacuum-pages}
+ * pages and checkpoints the WAL, so the file really shrinks, and logs the
+ * pages reclaimed.
+ *
+ * incremental_vacuum needs auto_vacuum=INCREMENTAL. New databases get it from
+ * {@link DataSourceConfig#incrementalVacuum}; an existing one needs the full
+ * VACUUM done there on startup with {@code vacuum-on-startup=true}. Until
+ * then, passes still purge but leave the file size alone.
+ */
+@Component
+public class EventCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventCompactor.class);
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final EventRepository eventRepository;
+    private final EventWriter eventWriter;
+    private final IdempotencyStore idempotencyStore;
+    private final DSLContext db;
+    private final DSLContext reader;
+    private final long intervalMs;
+    private final int retentionSeconds;
+    private final int batchSize;
+    private final long quietWrites;
+    private final int maxVacuumPages;
+
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong reclaimedPages = new AtomicLong();
+    private volatile long lastReclaimedPages;
+
+    private long lastWrites;
+    private volatile boolean running;
+    private Thread thread;
+
+    public EventCompactor(EventRepository eventRepository, EventWriter eventWriter,
+            IdempotencyStore idempotencyStore, DSLContext db,
+            @Qualifier(DataSourceConfig.READER) DSLContext reader,
+            @Value("${events.compaction.interval-ms:60000}") long intervalMs,
+            @Value("${events.compaction.retention-seconds:3600}") int retentionSeconds,
+            @Value("${events.compaction.batch-size:500}") int batchSize,
+            @Value("${events.compaction.quiet-writes:10}") long quietWrites,
+            @Value("${events.compaction.max-vacuum-pages:2048}") int maxVacuumPages) {
+        this.eventRepository = eventRepository;
+        this.eventWriter = eventWriter;
+        this.idempotencyStore = idempotencyStore;
+        this.db = db;
+        this.reader = reader;
+        this.intervalMs = intervalMs;
+        this.retentionSeconds = retentionSeconds;
+        this.batchSize = batchSize;
+        this.quietWrites = quietWrites;
+        this.maxVacuumPages = maxVacuumPages;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "event-compactor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public long getPasses() {
+        return passes.get();
+    }
+
+    public long getPurged() {
+        return purged.get();
+    }
+
+    public long getReclaimedPages() {
+        return reclaimedPages.get();
+    }
+
+    public long getLastReclaimedPages() {
+        return lastReclaimedPages;
+    }
+
+    /**
+     * Runs one pass now, quiet or not.
+     */
+    public synchronized CompactionResult compact() {
+        long pageSize = pragma("page_size");
+        long pagesBefore = pragma("page_count");
+
+        int deletedUntil = (int) (System.currentTimeMillis() / 1000) - retentionSeconds;
+        int purgedRows = 0;
+        int batch;
+        do {
+            batch = eventWriter.execute(tx -> eventRepository.purgeDeletedEvents(tx, deletedUntil, batchSize));
+            purgedRows += batch;
+        } while (batch == batchSize && eventWriter.getQueueDepth() == 0);
+
+        int expiredKeys = 0;
+        do {
+            batch = eventWriter.execute(tx -> idempotencyStore.purgeExpired(tx, batchSize));
+            expiredKeys += batch;
+        } while (batch == batchSize && eventWriter.getQueueDepth() == 0);
+
+        vacuum();
+
+        CompactionResult result = new CompactionResult(purgedRows, expiredKeys, pagesBefore, pragma("page_count"),
+                pageSize);
+        passes.incrementAndGet();
+        purged.addAndGet(result.getPurged());
+        reclaimedPages.addAndGet(result.getReclaimedPages());
+        lastReclaimedPages = result.getReclaimedPages();
+
+        if (result.getPurged() > 0 || result.getExpiredKeys() > 0 || result.getReclaimedPages() > 0) {
+            logger.info("Compaction purged {} deleted events and {} expired idempotency keys, "
+                    + "reclaimed {} pages ({} KiB), {} pages left", result.getPurged(), result.getExpiredKeys(),
+                    result.getReclaimedPages(), result.getReclaimedBytes() / 1024, result.getPagesAfter());
+        }
+        return result;
+    }
+
+    private void vacuum() {
+        if (pragma("auto_vacuum") != AUTO_VACUUM_INCREMENTAL || pragma("freelist_count") == 0) {
+            return;
+        }
+
+        // executeUpdate steps the pragma to completion; a plain execute frees a single page
+        eventWriter.execute(tx -> {
+            tx.connection(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("PRAGMA incremental_vacuum(" + maxVacuumPages + ")");
+                }
+            });
+            return null;
+        });
+
+        // Copy the WAL back now, which also truncates the database file to its new size
+        db.connection(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA wal_checkpoint(PASSIVE)");
+            }
+        });
+    }
+
+    private long pragma(String name) {
+        return reader.fetchSingle("PRAGMA " + name).get(0, Long.class);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMs);
+
+                long writes = eventWriter.getWrites();
+                boolean quiet = eventWriter.getQueueDepth() == 0 && writes - lastWrites <= quietWrites;
+                lastWrites = writes;
+                if (quiet) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Error compacting deleted events", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package so.akira.events.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+import so.akira.events.backup.BackupStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * File-backed SQLite pools. SQLite takes one writer at a time, so writes go
+ * through a single-connection pool (no SQLITE_BUSY between our own writers)
+ * while reads share a read-only pool. In WAL mode those readers never wait on
+ * the writer.
+ */
+@Configuration
+@Profile("!test")
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    public static final String READER = "reader";
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    @Value("${events.datasource.path:data/app.events-dev.db}")
+    private String path;
+
+    @Value("${events.datasource.reader-pool-size:8}")
+    private int readerPoolSize;
+
+    @Value("${events.datasource.reader-permits:8}")
+    private int readerPermits;
+
+    @Value("${events.datasource.permit-timeout-ms:5000}")
+    private long permitTimeoutMs;
+
+    @Value("${events.datasource.busy-timeout-ms:5000}")
+    private int busyTimeoutMs;
+
+    @Value("${events.datasource.cache-size-kib:16384}")
+    private int cacheSizeKib;
+
+    @Value("${events.datasource.mmap-size-bytes:268435456}")
+    private long mmapSizeBytes;
+
+    @Value("${events.backup.directory:data/backups}")
+    private String backupDirectory;
+
+    @Value("${events.backup.restore-on-startup:false}")
+    private boolean restoreOnStartup;
+
+    @Value("${events.compaction.vacuum-on-startup:false}")
+    private boolean vacuumOnStartup;
+
+    @Bean
+    @Primary
+    public DataSource writerDataSource() {
+        createParentDirectories(path);
+        if (restoreOnStartup) {
+            restore(path, backupDirectory);
+        }
+        HikariDataSource dataSource = writerPool(url(path), busyTimeoutMs, cacheSizeKib, mmapSizeBytes);
+        incrementalVacuum(dataSource, vacuumOnStartup);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        return dataSource;
+    }
+
+    // Depends on the writer so the database exists and is in WAL mode before readers open it.
+    // With virtual threads every request could reach for a connection at once, so the
+    // pool sits behind a semaphore of reader-permits (keep it <= reader-pool-size).
+    @Bean
+    @Qualifier(READER)
+    public DataSource readerDataSource(DataSource writerDataSource) {
+        return new BoundedDataSource(readerPool(url(path), readerPoolSize, busyTimeoutMs, cacheSizeKib, mmapSizeBytes),
+                readerPermits, permitTimeoutMs);
+    }
+
+    public static String url(String path) {
+        return "jdbc:sqlite:file:" + path;
+    }
+
+    public static HikariDataSource writerPool(String url, int busyTimeoutMs, int cacheSizeKib, long mmapSizeBytes) {
+        // Durable at checkpoints, and with WAL a crash can only lose the last commits, never corrupt
+        return writerPool(url, SQLiteConfig.JournalMode.WAL, SQLiteConfig.SynchronousMode.NORMAL, busyTimeoutMs,
+                cacheSizeKib, mmapSizeBytes);
+    }
+
+    public static HikariDataSource writerPool(String url, SQLiteConfig.JournalMode journalMode,
+            SQLiteConfig.SynchronousMode synchronous, int busyTimeoutMs, int cacheSizeKib, long mmapSizeBytes) {
+        SQLiteConfig sqlite = pragmas(busyTimeoutMs, cacheSizeKib, mmapSizeBytes);
+        sqlite.setJournalMode(journalMode);
+        sqlite.setSynchronous(synchronous);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setDataSourceProperties(sqlite.toProperties());
+        config.setMaximumPoolSize(1);
+        config.setPoolName("spring:hikari:writer");
+        config.setConnectionTestQuery("SELECT 1");
+        return new HikariDataSource(config);
+    }
+
+    public static HikariDataSource readerPool(String url, int poolSize, int busyTimeoutMs, int cacheSizeKib,
+            long mmapSizeBytes) {
+        SQLiteConfig sqlite = pragmas(busyTimeoutMs, cacheSizeKib, mmapSizeBytes);
+        sqlite.setReadOnly(true);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setDataSourceProperties(sqlite.toProperties());
+        config.setMaximumPoolSize(poolSize);
+        // Must match the open flag, sqlite-jdbc refuses to flip it on an open connection
+        config.setReadOnly(true);
+        config.setPoolName("spring:hikari:reader");
+        config.setConnectionTestQuery("SELECT 1");
+        return new HikariDataSource(config);
+    }
+
+    private static SQLiteConfig pragmas(int busyTimeoutMs, int cacheSizeKib, long mmapSizeBytes) {
+        SQLiteConfig sqlite = new SQLiteConfig();
+        sqlite.setBusyTimeout(busyTimeoutMs);
+        // A negative cache_size is in KiB rather than pages
+        sqlite.setCacheSize(-cacheSizeKib);
+        sqlite.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSizeBytes));
+        return sqlite;
+    }
+
+    /**
+     * Switches the database to auto_vacuum=INCREMENTAL, which the compactor needs
+     * to give freed pages back. That is free on a new database, before the
+     * migrations create any table (its VACUUM has nothing to copy). An existing database only switches through a
+     * full VACUUM, which rewrites the whole file while holding the write lock, so
+     * it only runs when {@code vacuumExisting} is set: an explicit offline step,
+     * done here before the writer or any request touches the database.
+     */
+    public static void incrementalVacuum(DataSource dataSource, boolean vacuumExisting) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            if (autoVacuum(statement) == AUTO_VACUUM_INCREMENTAL) {
+                return;
+            }
+            // Opening in WAL mode already wrote the header, but without tables the VACUUM has nothing to copy
+            if (isEmpty(statement)) {
+                statement.execute("VACUUM");
+                return;
+            }
+            if (!vacuumExisting) {
+                logger.warn("The database is not in auto_vacuum=INCREMENTAL, so compaction won't shrink the file. "
+                        + "Start once with events.compaction.vacuum-on-startup=true to switch it with a full VACUUM.");
+                return;
+            }
+
+            logger.info("Switching the database to auto_vacuum=INCREMENTAL, running a full VACUUM");
+            long startedMs = System.currentTimeMillis();
+            statement.execute("VACUUM");
+            logger.info("Full VACUUM done in {} ms", System.currentTimeMillis() - startedMs);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not switch the database to incremental vacuum", e);
+        }
+    }
+
+    private static boolean isEmpty(Statement statement) throws SQLException {
+        try (ResultSet result = statement.executeQuery("SELECT count(*) FROM sqlite_schema")) {
+            return result.getInt(1) == 0;
+        }
+    }
+
+    private static int autoVacuum(Statement statement) throws SQLException {
+        try (ResultSet result = statement.executeQuery("PRAGMA auto_vacuum")) {
+            return result.getInt(1);
+        }
+    }
+
+    // Before anything opens the database: a missing or damaged one is replaced by the newest verified backup
+    private static void restore(String path, String backupDirectory) {
+        try {
+            new BackupStore(Path.of(backupDirectory)).restoreIfNeeded(Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not restore " + path + " from " + backupDirectory, e);
+        }
+    }
+
+    private static void createParentDirectories(String path) {
+        Path parent = Path.of(path).toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(parent);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create database directory " + parent, e);
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package so.akira.events.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import so.akira.events.metrics.QueryMetricsListener;
 
 import javax.sql.DataSource;
 
@@ -12,7 +20,26 @@ import javax.sql.DataSource;
 public class JooqConfig {
 
     @Bean
-    public DSLContext dslContext(DataSource dataSource) {
-        return DSL.using(dataSource, SQLDialect.SQLITE);
+    @Primary
+    public DSLContext dslContext(DataSource dataSource, ObjectProvider<MeterRegistry> meterRegistry) {
+        return DSL.using(configuration(dataSource, "writer", meterRegistry.getIfAvailable()));
+    }
+
+    @Bean
+    @Qualifier(DataSourceConfig.READER)
+    public DSLContext readerDslContext(@Qualifier(DataSourceConfig.READER) DataSource dataSource,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return DSL.using(configuration(dataSource, DataSourceConfig.READER, meterRegistry.getIfAvailable()));
+    }
+
+    // Query timings are recorded whenever a registry exists; slices without actuator go without
+    private static DefaultConfiguration configuration(DataSource dataSource, String name, MeterRegistry meterRegistry) {
+        DefaultConfiguration configuration = new DefaultConfiguration();
+        configuration.set(dataSource);
+        configuration.set(SQLDialect.SQLITE);
+        if (meterRegistry != null) {
+            configuration.set(new QueryMetricsListener(meterRegistry, name));
+        }
+        return configuration;
     }
 }
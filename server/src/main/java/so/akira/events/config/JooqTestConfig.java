@@ -1,28 +1,37 @@
 package so.akira.events.config;
 
-import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import org.flywaydb.core.Flyway;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 
 import javax.sql.DataSource;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Same writer/reader split as {@link DataSourceConfig}, on a throwaway database
+ * file. A file rather than :memory: because every SQLite connection would
+ * otherwise get its own private in-memory database.
+ */
 @Configuration
+@Profile("test")
 public class JooqTestConfig {
 
+    private final String url = DataSourceConfig.url(tempDatabase().getAbsolutePath());
+
     @Bean
+    @Primary
     public DataSource dataSource() {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl("jdbc:sqlite::memory:");
-        config.setDriverClassName("org.sqlite.JDBC");
-        config.setMaximumPoolSize(5);
-        config.setPoolName("spring:hikari:test");
-        config.setConnectionTestQuery("SELECT 1");
-
-        HikariDataSource dataSource = new HikariDataSource(config);
+        HikariDataSource dataSource = DataSourceConfig.writerPool(url, 5000, 2000, 0);
+        DataSourceConfig.incrementalVacuum(dataSource, false);
 
         Flyway flyway = Flyway.configure()
                 .dataSource(dataSource)
@@ -32,4 +41,22 @@ public class JooqTestConfig {
 
         return dataSource;
     }
+
+    @Bean
+    @Qualifier(DataSourceConfig.READER)
+    public DataSource readerDataSource(DataSource dataSource) {
+        return new BoundedDataSource(DataSourceConfig.readerPool(url, 5, 5000, 2000, 0), 5, 5000);
+    }
+
+    private static File tempDatabase() {
+        try {
+            File file = File.createTempFile("app.events-test", ".db");
+            file.deleteOnExit();
+            new File(file.getPath() + "-wal").deleteOnExit();
+            new File(file.getPath() + "-shm").deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create test database", e);
+        }
+    }
 }
@@ -1,10 +1,25 @@
 package so.akira.events.config;
 
+import java.util.List;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import so.akira.events.admission.AdmissionInterceptor;
+import so.akira.events.encoding.ColumnarEventPageConverter;
+import so.akira.events.idempotency.IdempotencyStore;
+
 @Configuration
 public class WebConfig {
 
@@ -15,10 +30,48 @@ public class WebConfig {
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**")
                         .allowedOrigins("http://localhost:5173")
-                        .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                        .allowedHeaders("Accept", "Content-Type", "Origin", "X-Requested-With", "Authorization")
+                        .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
+                        .allowedHeaders("Accept", "Content-Type", "Origin", "X-Requested-With", "Authorization",
+                                "If-Match", "If-None-Match", IdempotencyStore.HEADER)
+                        .exposedHeaders("ETag", "Retry-After", IdempotencyStore.REPLAYED_HEADER)
                         .allowCredentials(true);
             }
         };
     }
+
+    @Bean
+    public WebMvcConfigurer admissionConfigurer(AdmissionInterceptor admissionInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/v1/events/**");
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer encodingConfigurer(ObjectMapper objectMapper) {
+        return new WebMvcConfigurer() {
+            // CBOR and Smile come with Spring's defaults once their Jackson modules are on the
+            // classpath. The columnar converter goes first: the JSON converter also claims
+            // application/*+json and would write its media type as a plain object.
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(0, new ColumnarEventPageConverter(objectMapper.getFactory()));
+            }
+
+            // Every response body is picked by Accept, so a shared cache must key on it too.
+            // Set before the handler runs, so 304s and streamed responses carry it as well.
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new HandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                        return true;
+                    }
+                }).addPathPatterns("/api/v1/events/**");
+            }
+        };
+    }
 }
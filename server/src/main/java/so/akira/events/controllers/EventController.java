@@ -1,22 +1,50 @@
 package so.akira.events.controllers;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 import jakarta.validation.Valid;
 import so.akira.events.models.StatusResponse;
+import so.akira.events.models.BatchItemResult;
 import so.akira.events.models.Event;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPatch;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.models.TableVersion;
+import so.akira.events.repositories.EventRepository;
 import so.akira.events.services.EventService;
 import so.akira.events.exceptions.CustomNoDataFoundException;
+import so.akira.events.exceptions.IdempotencyKeyReuseException;
+import so.akira.events.exceptions.VersionConflictException;
+import so.akira.events.export.EventSink;
+import so.akira.events.export.ExportFormat;
+import so.akira.events.idempotency.IdempotencyStore;
+import so.akira.events.idempotency.IdempotentResponse;
 
 @RestController
 @RequestMapping("/api/v1/events")
@@ -24,19 +52,254 @@ import so.akira.events.exceptions.CustomNoDataFoundException;
 public class EventController {
 
     private final EventService eventService;
+    private final ObjectMapper objectMapper;
 
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, ObjectMapper objectMapper) {
         this.eventService = eventService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public ResponseEntity<?> getEvents() {
+    public ResponseEntity<?> getEvents(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + EventRepository.DEFAULT_PAGE_SIZE) int limit, WebRequest request) {
+        if (limit <= 0 || limit > EventRepository.MAX_PAGE_SIZE) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid limit params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        EventCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = EventCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                StatusResponse statusResponse = new StatusResponse("error", "Invalid cursor params");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+            }
+        }
+
+        if (isNotModified(request)) {
+            return null;
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache())
+                .body(eventService.getEvents(after, limit));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchEvents(@Valid EventSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + EventRepository.DEFAULT_PAGE_SIZE) int limit, WebRequest request) {
+        if (limit <= 0 || limit > EventRepository.MAX_PAGE_SIZE) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid limit params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        if (criteria.getMinPrice() != null && criteria.getMaxPrice() != null
+                && criteria.getMinPrice() > criteria.getMaxPrice()) {
+            StatusResponse statusResponse = new StatusResponse("error", "minPrice must be less than or equal to maxPrice");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        EventCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = EventCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                StatusResponse statusResponse = new StatusResponse("error", "Invalid cursor params");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+            }
+        }
+
+        if (isNotModified(request)) {
+            return null;
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache())
+                .body(eventService.searchEvents(criteria, after, limit));
+    }
+
+    /**
+     * Events live at some point in [from, to), in epoch seconds, served by the
+     * interval index.
+     */
+    @GetMapping("/overlapping")
+    public ResponseEntity<?> getEventsOverlapping(@RequestParam int from, @RequestParam int to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + EventRepository.DEFAULT_PAGE_SIZE) int limit, WebRequest request) {
+        if (from < 0 || from >= to) {
+            StatusResponse statusResponse = new StatusResponse("error", "from must be positive and less than to");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        return overlapping(from, to, cursor, limit, request);
+    }
+
+    /**
+     * Events happening at {@code at} (epoch seconds, default now): started at or
+     * before it and not yet ended.
+     */
+    @GetMapping("/live")
+    public ResponseEntity<?> getLiveEvents(@RequestParam(required = false) Integer at,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + EventRepository.DEFAULT_PAGE_SIZE) int limit) {
+        int instant = at != null ? at : (int) (System.currentTimeMillis() / 1000);
+        if (instant < 0 || instant == Integer.MAX_VALUE) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid at params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        // Dates are whole seconds, so the instant is the one-second interval [at, at + 1).
+        // No conditional GET here: the answer for "now" changes without any write.
+        return overlapping(instant, instant + 1, cursor, limit, null);
+    }
+
+    private ResponseEntity<?> overlapping(int from, int to, String cursor, int limit, WebRequest request) {
+        if (limit <= 0 || limit > EventRepository.MAX_PAGE_SIZE) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid limit params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        EventCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = EventCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                StatusResponse statusResponse = new StatusResponse("error", "Invalid cursor params");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+            }
+        }
+
+        if (request != null && isNotModified(request)) {
+            return null;
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache())
+                .body(eventService.getEventsOverlapping(from, to, after, limit));
+    }
+
+    @GetMapping("/search/title")
+    public ResponseEntity<?> searchTitles(@RequestParam String q,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + EventRepository.DEFAULT_PAGE_SIZE) int limit) {
+        if (limit <= 0 || limit > EventRepository.MAX_PAGE_SIZE) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid limit params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        if (offset < 0 || offset > EventRepository.MAX_SEARCH_OFFSET) {
+            StatusResponse statusResponse = new StatusResponse("error",
+                    "offset must be between 0 and " + EventRepository.MAX_SEARCH_OFFSET);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(eventService.searchTitles(q, offset, limit));
+    }
+
+    // Declared as StreamingResponseBody (not ?) so MVC writes it asynchronously
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat;
         try {
-            return ResponseEntity.status(HttpStatus.OK).body(eventService.getEvents());
-        } catch (CustomNoDataFoundException e) {
-            StatusResponse statusResponse = new StatusResponse("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(statusResponse);
+            exportFormat = ExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid format params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, statusResponse));
         }
+
+        StreamingResponseBody body = out -> {
+            try (EventSink sink = exportFormat.open(out, objectMapper)) {
+                eventService.exportEvents(sink);
+            }
+        };
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("events." + exportFormat.getParam()).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Server-Sent Events stream of committed inserts, updates and deletes. Browsers'
+     * EventSource reconnects with Last-Event-ID on its own; {@code since} does the
+     * same for clients that can't set headers.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since) {
+        SseEmitter emitter = eventService.subscribeToChanges(lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(emitter);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        StatusResponse statusResponse = new StatusResponse("success", "Event stats", null, eventService.getStats());
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    @GetMapping("/stats/daily")
+    public ResponseEntity<?> getDailyStats(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "31") int limit) {
+        if (limit <= 0 || limit > EventRepository.MAX_STATS_DAYS) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid limit params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = from == null ? null : LocalDate.parse(from);
+            toDate = to == null ? null : LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            StatusResponse statusResponse = new StatusResponse("error", "Dates must be formatted as yyyy-MM-dd");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        StatusResponse statusResponse = new StatusResponse("success", "Events starting per day", null,
+                eventService.getDailyTotals(fromDate, toDate, limit));
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        StatusResponse statusResponse = new StatusResponse("success", "Event cache stats", null,
+                eventService.getCacheStats());
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    @GetMapping("/writer/stats")
+    public ResponseEntity<?> getWriterStats() {
+        StatusResponse statusResponse = new StatusResponse("success", "Event writer stats", null,
+                eventService.getWriterStats());
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    @GetMapping("/snapshot/stats")
+    public ResponseEntity<?> getSnapshotStats() {
+        StatusResponse statusResponse = new StatusResponse("success", "Event snapshot stats", null,
+                eventService.getSnapshotStats());
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    @GetMapping("/backup/stats")
+    public ResponseEntity<?> getBackupStats() {
+        StatusResponse statusResponse = new StatusResponse("success", "Database backup stats", null,
+                eventService.getBackupStats());
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    @GetMapping("/compaction/stats")
+    public ResponseEntity<?> getCompactionStats() {
+        StatusResponse statusResponse = new StatusResponse("success", "Event compaction stats", null,
+                eventService.getCompactionStats());
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
     }
 
     @GetMapping("/{id}")
@@ -46,35 +309,237 @@ public class EventController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
         }
 
-        try {
-            Event event = eventService.getEventById(id);
-            return ResponseEntity.status(HttpStatus.OK).body(event);
-        } catch (CustomNoDataFoundException e) {
+        // Served from the event cache; Spring answers a matching If-None-Match with
+        // 304 before anything is serialized. No Last-Modified: updated_at only has
+        // second resolution, so a second write within the same second would be
+        // missed by a client revalidating by date, while the ETag's version is not.
+        Event event = eventService.findEventById(id).orElse(null);
+        if (event == null) {
             StatusResponse statusResponse = new StatusResponse("error", "Event not found", null, new Object[0]);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(statusResponse);
         }
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .eTag(eTag(event))
+                .cacheControl(CacheControl.noCache())
+                .body(event);
     }
 
     @PostMapping("/new")
-    public ResponseEntity<?> createEvent(@Valid @RequestBody Event event) {
-        eventService.insertEvent(event);
-        return ResponseEntity.status(HttpStatus.CREATED).body(event);
+    public ResponseEntity<?> createEvent(@Valid @RequestBody Event event,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            eventService.insertEvent(event);
+            return ResponseEntity.status(HttpStatus.CREATED).body(event);
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            StatusResponse statusResponse = new StatusResponse("error",
+                    "Idempotency-Key must be between 1 and " + IdempotencyStore.MAX_KEY_LENGTH + " characters");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        try {
+            IdempotentResponse response = eventService.insertEvent(event, idempotencyKey);
+            return ResponseEntity.status(response.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(IdempotencyStore.REPLAYED_HEADER, String.valueOf(response.isReplayed()))
+                    .body(response.getBody());
+        } catch (IdempotencyKeyReuseException e) {
+            StatusResponse statusResponse = new StatusResponse("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(statusResponse);
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createEvents(@RequestBody List<Event> events) {
+        ResponseEntity<?> invalid = checkBatchSize(events);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        return batchResponse(eventService.insertEvents(events), "created");
     }
 
+    @PutMapping("/batch")
+    public ResponseEntity<?> updateEvents(@RequestBody List<Event> events) {
+        ResponseEntity<?> invalid = checkBatchSize(events);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        for (Event event : events) {
+            if (event.getId() <= 0) {
+                StatusResponse statusResponse = new StatusResponse("error", "Every event must have a valid id");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+            }
+        }
+
+        return batchResponse(eventService.updateEvents(events), "updated");
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<?> deleteEvents(@RequestBody List<Integer> ids) {
+        ResponseEntity<?> invalid = checkBatchSize(ids);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        for (Integer id : ids) {
+            if (id <= 0) {
+                StatusResponse statusResponse = new StatusResponse("error", "Invalid ID params");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+            }
+        }
+
+        return batchResponse(eventService.deleteEvents(ids), "deleted");
+    }
+
+    /**
+     * Conditional GET for list responses, checked against the table version before
+     * any query runs. On a match the 304 and its headers are already set, and the
+     * caller should return null. The version is read before the page, so a page can
+     * only be newer than its ETag, never older. The ETag is weak, as Tomcat won't
+     * gzip a response with a strong one, and it also names the request's Accept:
+     * the same table version is served as JSON, CBOR, Smile or columnar JSON, and a
+     * cache revalidating several stored variants at once tells them apart by ETag.
+     *
+     * No Last-Modified, and If-Modified-Since is ignored: the table's write time
+     * only has second resolution, so two writes within a second would get a
+     * client revalidating by date a stale 304.
+     */
+    private boolean isNotModified(WebRequest request) {
+        TableVersion version = eventService.getEventsVersion();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String representation = accept == null ? "" : "-" + Integer.toHexString(accept.hashCode());
+        return request.checkNotModified("W/\"events-" + version.getVersion() + representation + "\"");
+    }
+
+    private static String eTag(Event event) {
+        return eTag(event.getId(), event.getVersion());
+    }
+
+    private static String eTag(int id, int version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    private ResponseEntity<?> checkBatchSize(List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > EventRepository.MAX_BATCH_SIZE) {
+            StatusResponse statusResponse = new StatusResponse("error",
+                    "Batch must contain between 1 and " + EventRepository.MAX_BATCH_SIZE + " items");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+        if (items.contains(null)) {
+            StatusResponse statusResponse = new StatusResponse("error", "Batch must not contain null items");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+        return null;
+    }
+
+    private ResponseEntity<?> batchResponse(List<BatchItemResult> results, String action) {
+        long succeeded = results.stream().filter(BatchItemResult::isSuccess).count();
+        String status = succeeded == results.size() ? "success" : "error";
+        String message = succeeded + " of " + results.size() + " events " + action;
+
+        StatusResponse statusResponse = new StatusResponse(status, message, null, results);
+        return ResponseEntity.status(HttpStatus.OK).body(statusResponse);
+    }
+
+    /**
+     * Replaces the event. With an If-Match of the ETag from GET, the update only
+     * applies if nobody changed the event since (412 otherwise).
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateEvent(@PathVariable int id, @Valid @RequestBody Event event) {
+    public ResponseEntity<?> updateEvent(@PathVariable int id, @Valid @RequestBody Event event,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (id <= 0) {
             StatusResponse statusResponse = new StatusResponse("error", "Invalid ID params");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
         }
 
+        Integer expectedVersion;
         try {
-            eventService.updateEvent(id, event);
-            return ResponseEntity.status(HttpStatus.OK).body(event);
+            expectedVersion = expectedVersion(ifMatch, id);
+        } catch (IllegalArgumentException e) {
+            StatusResponse statusResponse = new StatusResponse("error", "If-Match does not match this event");
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(statusResponse);
+        }
+
+        try {
+            eventService.updateEvent(id, event, expectedVersion);
+            return ResponseEntity.status(HttpStatus.OK).eTag(eTag(event)).body(event);
         } catch (CustomNoDataFoundException e) {
             StatusResponse statusResponse = new StatusResponse("error", "Event not found", null, new Object[0]);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(statusResponse);
+        } catch (VersionConflictException e) {
+            return versionConflict(id, e, HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    /**
+     * Updates only the fields present in the body. The expected version comes
+     * from If-Match (412 when stale) or else from a {@code version} field in the
+     * body (409 when stale); without either the patch applies unconditionally.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchEvent(@PathVariable int id, @Valid @RequestBody EventPatch patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (id <= 0) {
+            StatusResponse statusResponse = new StatusResponse("error", "Invalid ID params");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        if (patch.isEmpty()) {
+            StatusResponse statusResponse = new StatusResponse("error", "Patch must change at least one field");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
+        }
+
+        Integer expectedVersion;
+        try {
+            expectedVersion = expectedVersion(ifMatch, id);
+        } catch (IllegalArgumentException e) {
+            StatusResponse statusResponse = new StatusResponse("error", "If-Match does not match this event");
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(statusResponse);
+        }
+        HttpStatus conflictStatus = HttpStatus.PRECONDITION_FAILED;
+        if (ifMatch == null && patch.getVersion() != null) {
+            expectedVersion = patch.getVersion();
+            conflictStatus = HttpStatus.CONFLICT;
+        }
+
+        try {
+            Event event = eventService.patchEvent(id, patch, expectedVersion);
+            return ResponseEntity.status(HttpStatus.OK).eTag(eTag(event)).body(event);
+        } catch (CustomNoDataFoundException e) {
+            StatusResponse statusResponse = new StatusResponse("error", "Event not found", null, new Object[0]);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(statusResponse);
+        } catch (VersionConflictException e) {
+            return versionConflict(id, e, conflictStatus);
+        }
+    }
+
+    // The current ETag lets the client refetch or retry against what is there now
+    private static ResponseEntity<?> versionConflict(int id, VersionConflictException e, HttpStatus status) {
+        StatusResponse statusResponse = new StatusResponse("error", e.getMessage());
+        return ResponseEntity.status(status).eTag(eTag(id, e.getCurrentVersion())).body(statusResponse);
+    }
+
+    /**
+     * Version named by an If-Match of our {@code "id-version"} ETags, null without
+     * a header or for {@code *}. Throws when it can never match this event.
+     */
+    private static Integer expectedVersion(String ifMatch, int id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        // If-Match compares strongly, so a weak W/ tag never matches
+        String tag = ifMatch.trim();
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new IllegalArgumentException("Not an ETag of event " + id + ": " + ifMatch);
         }
+        return Integer.parseInt(tag.substring(prefix.length(), tag.length() - 1));
     }
 
     @DeleteMapping("/{id}")
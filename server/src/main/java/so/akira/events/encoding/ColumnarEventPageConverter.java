@@ -0,0 +1,136 @@
+package so.akira.events.encoding;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventPage;
+
+/**
+ * Writes an {@link EventPage} column by column ("struct of arrays") instead of
+ * as a list of objects, so each field name appears once per page rather than
+ * once per event:
+ *
+ * <pre>
+ * {"count":2,"nextCursor":"...","id":[1,2],"title":["A","B"],"price":[100,200],...}
+ * </pre>
+ *
+ * Only written when a client names the media type in Accept; a wildcard keeps
+ * getting the regular JSON.
+ */
+public class ColumnarEventPageConverter extends AbstractHttpMessageConverter<EventPage> {
+
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType("application/vnd.events.columnar+json");
+
+    private final JsonFactory jsonFactory;
+
+    public ColumnarEventPageConverter(JsonFactory jsonFactory) {
+        super(COLUMNAR_JSON);
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EventPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    // Called with a null media type to collect what can be produced for a wildcard Accept
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && mediaType.isConcrete() && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    protected EventPage readInternal(Class<? extends EventPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar event pages are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(EventPage page, HttpOutputMessage outputMessage) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(outputMessage.getBody());
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        write(page, generator);
+        generator.close();
+    }
+
+    /**
+     * Writes the page as one columnar object.
+     */
+    public static void write(EventPage page, JsonGenerator generator) throws IOException {
+        List<Event> events = page.getItems();
+
+        generator.writeStartObject();
+        generator.writeNumberField("count", events.size());
+        generator.writeStringField("nextCursor", page.getNextCursor());
+
+        generator.writeArrayFieldStart("id");
+        for (Event event : events) {
+            generator.writeNumber(event.getId());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("title");
+        for (Event event : events) {
+            generator.writeString(event.getTitle());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("price");
+        for (Event event : events) {
+            generator.writeNumber(event.getPrice());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("status");
+        for (Event event : events) {
+            generator.writeString(event.getStatus());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("startDate");
+        for (Event event : events) {
+            generator.writeNumber(event.getStartDate());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("endDate");
+        for (Event event : events) {
+            generator.writeNumber(event.getEndDate());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("createdAt");
+        for (Event event : events) {
+            generator.writeNumber(event.getCreatedAt());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("updatedAt");
+        for (Event event : events) {
+            generator.writeNumber(event.getUpdatedAt());
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("version");
+        for (Event event : events) {
+            generator.writeNumber(event.getVersion());
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+    }
+}
@@ -1,11 +1,15 @@
 package so.akira.events.exceptions;
 
+/**
+ * A lookup found nothing. Answered with a 404, so like the other client error
+ * exceptions it skips capturing a stack trace.
+ */
 public class CustomNoDataFoundException extends RuntimeException {
     public CustomNoDataFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public CustomNoDataFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -6,6 +6,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import so.akira.events.logging.RateLimitedLogger;
 import so.akira.events.models.StatusResponse;
 
 import java.util.HashMap;
@@ -14,6 +15,9 @@ import java.util.Map;
 @ControllerAdvice
 public class GlobalExceptionsHandler {
 
+    // Client errors are only worth a debug line; a burst of server errors logs a sample
+    private static final RateLimitedLogger logger = RateLimitedLogger.getLogger(GlobalExceptionsHandler.class);
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<StatusResponse> handleValidationException(MethodArgumentNotValidException e) {
         Map<String, String> errors = new HashMap<>();
@@ -22,24 +26,28 @@ public class GlobalExceptionsHandler {
             errors.put(error.getField(), error.getDefaultMessage());
         });
 
+        logger.debug("Validation failed: {}", errors);
         StatusResponse statusResponse = new StatusResponse("error", "Validation failed", errors);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
     }
 
     @ExceptionHandler(SQLConstraintViolationException.class)
     public ResponseEntity<StatusResponse> handleConstraintViolationException(SQLConstraintViolationException e) {
+        logger.debug("Constraint violation: {}", e.getMessage());
         StatusResponse statusResponse = new StatusResponse("error", e.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(statusResponse);
     }
 
     @ExceptionHandler(CustomNoDataFoundException.class)
     public ResponseEntity<StatusResponse> handleNoDataFoundException(CustomNoDataFoundException e) {
+        logger.debug("Not found: {}", e.getMessage());
         StatusResponse statusResponse = new StatusResponse("error", e.getMessage(), null, new Object[0]);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(statusResponse);
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<StatusResponse> handleException(RuntimeException e) {
+        logger.error("Unhandled error", e);
         StatusResponse statusResponse = new StatusResponse("error", e.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(statusResponse);
     }
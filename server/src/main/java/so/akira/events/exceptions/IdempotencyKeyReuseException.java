@@ -0,0 +1,11 @@
+package so.akira.events.exceptions;
+
+/**
+ * An idempotency key was sent again with a different request than the one it
+ * was first used for.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,7 +1,11 @@
 package so.akira.events.exceptions;
 
+/**
+ * A write broke a constraint or validation trigger. Answered with a 400 and
+ * stackless; the cause keeps the trace of the underlying SQL error.
+ */
 public class SQLConstraintViolationException extends RuntimeException {
     public SQLConstraintViolationException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
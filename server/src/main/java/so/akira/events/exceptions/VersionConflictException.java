@@ -0,0 +1,17 @@
+package so.akira.events.exceptions;
+
+/**
+ * A conditional write found the event at another version than the client expected.
+ */
+public class VersionConflictException extends RuntimeException {
+    private final int currentVersion;
+
+    public VersionConflictException(String message, int currentVersion) {
+        super(message, null, false, false);
+        this.currentVersion = currentVersion;
+    }
+
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,19 @@
+package so.akira.events.export;
+
+import java.io.IOException;
+
+import so.akira.events.models.Event;
+
+/**
+ * Receives exported events one at a time, in id order.
+ */
+public interface EventSink extends AutoCloseable {
+
+    void write(Event event) throws IOException;
+
+    /**
+     * Flushes whatever is buffered. Does not close the underlying stream.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,103 @@
+package so.akira.events.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import so.akira.events.models.Event;
+
+/**
+ * Formats of the full-table export. Each writes rows as they arrive through a
+ * small buffer, so memory does not grow with the table.
+ */
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson") {
+        @Override
+        public EventSink open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            ObjectWriter writer = objectMapper.writerFor(Event.class);
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Jackson separates root values with a space by default; lines are the separator here
+            generator.setRootValueSeparator(null);
+
+            return new EventSink() {
+                @Override
+                public void write(Event event) throws IOException {
+                    writer.writeValue(generator, event);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void close() throws IOException {
+                    generator.close();
+                }
+            };
+        }
+    },
+    CSV("csv", "text/csv") {
+        @Override
+        public EventSink open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,title,price,status,startDate,endDate,createdAt,updatedAt\n");
+
+            return new EventSink() {
+                @Override
+                public void write(Event event) throws IOException {
+                    writer.write(event.getId() + "," + csvField(event.getTitle()) + "," + event.getPrice() + ","
+                            + csvField(event.getStatus()) + "," + event.getStartDate() + "," + event.getEndDate()
+                            + "," + event.getCreatedAt() + "," + event.getUpdatedAt() + "\n");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+    };
+
+    private final String param;
+    private final String contentType;
+
+    ExportFormat(String param, String contentType) {
+        this.param = param;
+        this.contentType = contentType;
+    }
+
+    public static ExportFormat fromParam(String param) throws IllegalArgumentException {
+        for (ExportFormat format : values()) {
+            if (format.param.equals(param)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + param);
+    }
+
+    public abstract EventSink open(OutputStream out, ObjectMapper objectMapper) throws IOException;
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // RFC 4180: quote fields holding a delimiter, quote or line break, doubling inner quotes
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
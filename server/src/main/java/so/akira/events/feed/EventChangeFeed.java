@@ -0,0 +1,217 @@
+package so.akira.events.feed;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventChange;
+
+/**
+ * Server-Sent Events feed of committed event mutations.
+ *
+ * Changes get a sequence number and go into a bounded history, so a client
+ * reconnecting with Last-Event-ID gets what it missed. Each subscriber has its
+ * own bounded buffer drained by its own virtual thread. When a slow client's
+ * buffer is full the oldest change is dropped, and the client gets a
+ * {@code reset} event telling it to refetch instead of applying deltas. The
+ * same happens when it resumes from further back than the history goes.
+ */
+@Component
+public class EventChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventChangeFeed.class);
+
+    static final String RESET = "reset";
+
+    // Sequence numbers restart with the process, so ids carry the start time to tell runs apart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final int historySize;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long heartbeatMs;
+    private final long timeoutMs;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<EventChange> history;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private long seq;
+
+    @Autowired
+    public EventChangeFeed(@Value("${events.feed.history-size:1024}") int historySize,
+            @Value("${events.feed.buffer-size:256}") int bufferSize,
+            @Value("${events.feed.max-subscribers:256}") int maxSubscribers,
+            @Value("${events.feed.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${events.feed.timeout-ms:1800000}") long timeoutMs) {
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatMs = heartbeatMs;
+        this.timeoutMs = timeoutMs;
+        this.history = new ArrayDeque<>(historySize);
+    }
+
+    /**
+     * Sequences a committed change and hands it to every subscriber. Never blocks
+     * on a subscriber.
+     */
+    public void publish(String type, int id, Event event) {
+        synchronized (lock) {
+            EventChange change = new EventChange(++seq, type, id, event);
+            if (history.size() == historySize) {
+                history.removeFirst();
+            }
+            history.addLast(change);
+
+            // Offered under the lock so every buffer sees changes in sequence order
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    /**
+     * Opens a subscription resuming after {@code lastEventId} (an id previously
+     * sent by this feed), or from now when it is null. Returns null when the
+     * subscriber limit is reached.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+
+        synchronized (lock) {
+            if (lastEventId != null) {
+                long after = resumePoint(lastEventId);
+                if (after < 0) {
+                    subscriber.reset = true;
+                } else {
+                    history.stream().filter(change -> change.getSeq() > after).forEach(subscriber::offer);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        Thread.ofVirtual().name("event-feed-subscriber").start(subscriber::run);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    String id(long seq) {
+        return epoch + "-" + seq;
+    }
+
+    long lastSeq() {
+        synchronized (lock) {
+            return seq;
+        }
+    }
+
+    /**
+     * Sequence number to replay after, or -1 when the id belongs to another run
+     * or is older than the history.
+     */
+    private long resumePoint(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return -1;
+        }
+
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+
+        long oldest = history.isEmpty() ? seq + 1 : history.getFirst().getSeq();
+        return after > seq || after < oldest - 1 ? -1 : after;
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<EventChange> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean reset;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Only called under the feed lock, so there is a single producer
+        void offer(EventChange change) {
+            while (!buffer.offer(change)) {
+                if (buffer.poll() != null) {
+                    reset = true;
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        void run() {
+            try {
+                while (!closed) {
+                    if (reset) {
+                        reset = false;
+                        emitter.send(SseEmitter.event().name(RESET).data("{\"reason\":\"missed changes\"}"));
+                    }
+
+                    EventChange change = buffer.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    if (change == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().id(id(change.getSeq())).name(change.getType()).data(change));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter already completed
+                logger.debug("Event feed subscriber disconnected", e);
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
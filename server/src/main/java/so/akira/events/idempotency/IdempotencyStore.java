@@ -0,0 +1,201 @@
+package so.akira.events.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import so.akira.events.exceptions.IdempotencyKeyReuseException;
+import so.akira.events.repositories.IdempotencyKeyRepository;
+
+/**
+ * Remembers the response to each request sent with an {@code Idempotency-Key},
+ * so a retried request is answered with it instead of running again.
+ *
+ * Lookups go to a bounded in-memory tier first ({@code capacity} keys), then to
+ * the idempotency_keys table, which survives restarts and whatever the memory
+ * tier evicted; neither touches the events table. Both forget keys after
+ * {@code ttl-seconds}. Concurrent requests with the same key collapse onto the
+ * one that got there first: the others wait for its response rather than
+ * inserting again.
+ *
+ * A key is bound to the fingerprint of the request that first used it. Sending
+ * it with a different request fails with {@link IdempotencyKeyReuseException}.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int ttlSeconds;
+    private final Cache<String, IdempotentResponse> responses;
+    private final Map<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public IdempotencyStore(IdempotencyKeyRepository repository, ObjectMapper objectMapper,
+            @Value("${events.idempotency.capacity:10000}") long capacity,
+            @Value("${events.idempotency.ttl-seconds:86400}") int ttlSeconds) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttlSeconds = ttlSeconds;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(capacity)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the response stored under {@code key}, or runs {@code action} to
+     * produce it. The action must {@link #save} its response in the same write
+     * transaction as its other changes.
+     */
+    public IdempotentResponse execute(String key, String fingerprint, Supplier<IdempotentResponse> action) {
+        IdempotentResponse response = responses.getIfPresent(key);
+        if (response != null) {
+            return replay(key, fingerprint, response);
+        }
+
+        CompletableFuture<IdempotentResponse> pending = new CompletableFuture<>();
+        CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            return replay(key, fingerprint, await(running));
+        }
+
+        try {
+            // Whoever held the key before us may have finished between the two lookups
+            response = responses.getIfPresent(key);
+            if (response == null) {
+                response = repository.findResponse(key, createdSince());
+                if (response != null) {
+                    responses.put(key, response);
+                }
+            }
+            if (response != null) {
+                pending.complete(response);
+                return replay(key, fingerprint, response);
+            }
+
+            response = action.get();
+            executed.incrementAndGet();
+            responses.put(key, response);
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Stores the response under {@code key} inside the caller's write transaction.
+     */
+    public void save(DSLContext tx, String key, IdempotentResponse response) {
+        repository.saveResponse(tx, key, response);
+    }
+
+    /**
+     * Deletes up to {@code limit} persisted keys past the TTL. The memory tier
+     * expires its own.
+     */
+    public int purgeExpired(DSLContext tx, int limit) {
+        return repository.purgeExpired(tx, createdSince(), limit);
+    }
+
+    /**
+     * Response for {@code body} serialized as JSON.
+     */
+    public IdempotentResponse response(String fingerprint, int status, Object body) {
+        try {
+            return new IdempotentResponse(fingerprint, status, objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Response body can't be serialized", e);
+        }
+    }
+
+    /**
+     * SHA-256 over the operation and the request body as JSON, so the same key
+     * can't be replayed for another endpoint or another payload.
+     */
+    public String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Request can't be fingerprinted", e);
+        }
+    }
+
+    public long size() {
+        return responses.estimatedSize();
+    }
+
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getCollapsed() {
+        return collapsed.get();
+    }
+
+    private IdempotentResponse replay(String key, String fingerprint, IdempotentResponse response) {
+        if (!response.getFingerprint().equals(fingerprint)) {
+            logger.debug("Idempotency key {} reused for a different request", key);
+            throw new IdempotencyKeyReuseException("Idempotency key was already used for a different request");
+        }
+        replayed.incrementAndGet();
+        return response.asReplay();
+    }
+
+    private static IdempotentResponse await(CompletableFuture<IdempotentResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Same outcome as the request we collapsed onto, e.g. the same validation error
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private int createdSince() {
+        return (int) (System.currentTimeMillis() / 1000) - ttlSeconds;
+    }
+}
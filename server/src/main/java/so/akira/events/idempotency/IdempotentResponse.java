@@ -0,0 +1,49 @@
+package so.akira.events.idempotency;
+
+/**
+ * Response stored under an idempotency key: its status and JSON body, and the
+ * fingerprint of the request that produced it. {@code replayed} is set on the
+ * copies handed out for retries.
+ */
+public class IdempotentResponse {
+    private final String fingerprint;
+    private final int status;
+    private final String body;
+    private final boolean replayed;
+
+    public IdempotentResponse(String fingerprint, int status, String body) {
+        this(fingerprint, status, body, false);
+    }
+
+    private IdempotentResponse(String fingerprint, int status, String body, boolean replayed) {
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.body = body;
+        this.replayed = replayed;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public boolean isReplayed() {
+        return replayed;
+    }
+
+    public IdempotentResponse asReplay() {
+        return new IdempotentResponse(fingerprint, status, body, true);
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotentResponse{status=" + status + ", replayed=" + replayed + ", fingerprint=" + fingerprint + "}";
+    }
+}
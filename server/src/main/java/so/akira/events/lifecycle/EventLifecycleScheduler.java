@@ -0,0 +1,246 @@
+package so.akira.events.lifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import so.akira.events.cache.EventCache;
+import so.akira.events.feed.EventChangeFeed;
+import so.akira.events.models.Event;
+import so.akira.events.models.EventChange;
+import so.akira.events.repositories.EventRepository;
+import so.akira.events.snapshot.EventSnapshot;
+import so.akira.events.writer.EventWriter;
+
+/**
+ * Moves events to {@code completed} once their end date passes.
+ *
+ * Pending end dates sit in a min-heap ({@link DelayQueue}) that one thread waits
+ * on. Whatever is due at once is completed in a single UPDATE through the
+ * {@link EventWriter}, then evicted from the cache, reported to the
+ * {@link EventSnapshot} and published on the change feed like any other update.
+ *
+ * Only events ending within {@code horizon-seconds} (and at most
+ * {@code capacity} of them) are held in memory. The heap is rebuilt from
+ * idx_events_pending_end_date on startup, which also catches up on anything
+ * that ended while the server was down, and topped up every half horizon.
+ * Writes in between are added through {@link #schedule(int, int)}, which
+ * waits out a refill in progress: the refill may have read an event before a
+ * write changed it, and the write's schedule has to land after it. An entry
+ * may go stale (the event was rescheduled, completed or deleted since); the
+ * UPDATE re-checks status and end date, so a stale entry never completes an
+ * event early.
+ */
+@Component
+public class EventLifecycleScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLifecycleScheduler.class);
+
+    private final EventRepository eventRepository;
+    private final EventWriter eventWriter;
+    private final EventCache eventCache;
+    private final EventChangeFeed eventChangeFeed;
+    private final EventSnapshot eventSnapshot;
+    private final int horizonSeconds;
+    private final int capacity;
+    private final int batchSize;
+
+    private final DelayQueue<Due> queue = new DelayQueue<>();
+    // Latest end date scheduled per event; a heap entry that doesn't match it is stale
+    private final Map<Integer, Integer> scheduled = new ConcurrentHashMap<>();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    // Every pending event ending before this is in the heap. Guarded by this.
+    private long scheduledUntil;
+    // Only touched by the scheduler thread
+    private long refillAtMs;
+    private boolean backlog;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public EventLifecycleScheduler(EventRepository eventRepository, EventWriter eventWriter, EventCache eventCache,
+            EventChangeFeed eventChangeFeed, EventSnapshot eventSnapshot,
+            @Value("${events.lifecycle.horizon-seconds:3600}") int horizonSeconds,
+            @Value("${events.lifecycle.capacity:10000}") int capacity,
+            @Value("${events.lifecycle.batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.eventWriter = eventWriter;
+        this.eventCache = eventCache;
+        this.eventChangeFeed = eventChangeFeed;
+        this.eventSnapshot = eventSnapshot;
+        this.horizonSeconds = horizonSeconds;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        refillAtMs = 0;
+        thread = new Thread(this::run, "event-lifecycle");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Schedules completion of a pending event at {@code endDate}, replacing any
+     * earlier schedule for it. Ends beyond what the heap covers are left to the
+     * next refill.
+     */
+    public synchronized void schedule(int id, int endDate) {
+        if (endDate < scheduledUntil) {
+            enqueue(id, endDate);
+        } else {
+            scheduled.remove(id);
+        }
+    }
+
+    /**
+     * Drops the schedule of an event that was completed or deleted by a client.
+     */
+    public synchronized void unschedule(int id) {
+        scheduled.remove(id);
+    }
+
+    public int getScheduled() {
+        return scheduled.size();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Loads pending events ending within the horizon into the heap. When there
+     * are more than {@code capacity}, the heap covers the soonest ones and the
+     * next refill runs as soon as they are done. Holds the lock from the query
+     * until the new horizon is set, so no schedule() goes by in between.
+     */
+    private synchronized void refill() {
+        long now = System.currentTimeMillis();
+        int until = (int) Math.min(now / 1000 + horizonSeconds, Integer.MAX_VALUE);
+        Map<Integer, Integer> ends = eventRepository.getPendingEnds(until, capacity);
+
+        backlog = ends.size() == capacity;
+        int lastEnd = until;
+        for (Map.Entry<Integer, Integer> end : ends.entrySet()) {
+            enqueue(end.getKey(), end.getValue());
+            lastEnd = end.getValue();
+        }
+        scheduledUntil = backlog ? lastEnd : until;
+        refillAtMs = now + TimeUnit.SECONDS.toMillis(horizonSeconds) / 2;
+        logger.debug("Scheduled {} pending events ending before {}", ends.size(), scheduledUntil);
+    }
+
+    private void enqueue(int id, int endDate) {
+        Integer previous = scheduled.put(id, endDate);
+        if (!Objects.equals(previous, endDate)) {
+            queue.add(new Due(id, endDate));
+        }
+    }
+
+    private void run() {
+        List<Due> due = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (System.currentTimeMillis() >= refillAtMs || (backlog && queue.isEmpty())) {
+                    refill();
+                }
+
+                Due first = queue.poll(Math.max(refillAtMs - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                due.add(first);
+                // Only takes entries that are already due
+                queue.drainTo(due, batchSize - 1);
+                complete(due);
+                due.clear();
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                // Whatever wasn't completed is still pending in the database and comes back with the next refill
+                logger.error("Error scheduling or completing {} ended events", due.size(), e);
+                due.clear();
+                refillAtMs = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(1);
+            }
+        }
+    }
+
+    private void complete(List<Due> due) {
+        List<Integer> ids = new ArrayList<>(due.size());
+        for (Due entry : due) {
+            if (scheduled.remove(entry.id, entry.endDate)) {
+                ids.add(entry.id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        int now = (int) (System.currentTimeMillis() / 1000);
+        List<Event> events;
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
+            events = eventWriter.execute(tx -> eventRepository.completeEvents(tx, ids, now),
+                    changed -> changed.forEach(
+                            event -> eventChangeFeed.publish(EventChange.UPDATE, event.getId(), event)));
+            for (Event event : events) {
+                write.changed(event.getId());
+                eventCache.invalidate(event.getId());
+            }
+        }
+
+        completed.addAndGet(events.size());
+        batches.incrementAndGet();
+        logger.debug("Completed {} of {} due events", events.size(), ids.size());
+    }
+
+    private static class Due implements Delayed {
+        private final int id;
+        private final int endDate;
+
+        Due(int id, int endDate) {
+            this.id = id;
+            this.endDate = endDate;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(endDate * 1000L - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Due due = (Due) other;
+            return endDate != due.endDate ? Integer.compare(endDate, due.endDate) : Integer.compare(id, due.id);
+        }
+    }
+}
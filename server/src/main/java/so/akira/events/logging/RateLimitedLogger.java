@@ -0,0 +1,123 @@
+package so.akira.events.logging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * SLF4J logger that lets each message through at most {@code permits} times
+ * per {@code window}. Messages are told apart by their format string, so call
+ * sites must pass a constant format and put everything variable in the
+ * arguments. What is dropped is counted and reported once the window turns
+ * over, with the next message of the same format.
+ *
+ * Debug and trace go straight through; they are off in production and meant
+ * for chasing a single request.
+ */
+public final class RateLimitedLogger {
+
+    private static final int DEFAULT_PERMITS = 10;
+    private static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    private final Logger logger;
+    private final int permits;
+    private final long windowNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    RateLimitedLogger(Logger logger, int permits, Duration window) {
+        this.logger = logger;
+        this.permits = permits;
+        this.windowNanos = window.toNanos();
+    }
+
+    public static RateLimitedLogger getLogger(Class<?> type) {
+        return new RateLimitedLogger(LoggerFactory.getLogger(type), DEFAULT_PERMITS, DEFAULT_WINDOW);
+    }
+
+    public void trace(String format, Object... arguments) {
+        logger.trace(format, arguments);
+    }
+
+    public void debug(String format, Object... arguments) {
+        logger.debug(format, arguments);
+    }
+
+    public void info(String format, Object... arguments) {
+        if (logger.isInfoEnabled() && acquire(Level.INFO, format)) {
+            logger.info(format, arguments);
+        }
+    }
+
+    public void warn(String format, Object... arguments) {
+        if (logger.isWarnEnabled() && acquire(Level.WARN, format)) {
+            logger.warn(format, arguments);
+        }
+    }
+
+    public void error(String format, Object... arguments) {
+        if (logger.isErrorEnabled() && acquire(Level.ERROR, format)) {
+            logger.error(format, arguments);
+        }
+    }
+
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    /**
+     * Messages dropped so far, across all formats.
+     */
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    private boolean acquire(Level level, String format) {
+        long now = System.nanoTime();
+        Window window = windows.computeIfAbsent(format, key -> new Window(now - windowNanos));
+        long dropped = window.acquire(now, permits, windowNanos);
+        if (dropped < 0) {
+            suppressed.incrementAndGet();
+            return false;
+        }
+        if (dropped > 0) {
+            logger.atLevel(level).log("Suppressed {} more messages like \"{}\"", dropped, format);
+        }
+        return true;
+    }
+
+    private static final class Window {
+        private long start;
+        private int used;
+        private long dropped;
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Takes a permit. Returns how many were dropped in the window that just
+         * ended (0 if it hasn't), or -1 when none are left.
+         */
+        synchronized long acquire(long now, int permits, long windowNanos) {
+            if (now - start >= windowNanos) {
+                long ended = dropped;
+                start = now;
+                used = 1;
+                dropped = 0;
+                return ended;
+            }
+            if (used < permits) {
+                used++;
+                return 0;
+            }
+            dropped++;
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package so.akira.events.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import so.akira.events.exceptions.CustomNoDataFoundException;
+import so.akira.events.exceptions.SQLConstraintViolationException;
+
+/**
+ * Times every public EventController and EventRepository method as
+ * events.controller / events.repository, tagged by method and outcome
+ * (success, not_found, constraint_violation, client_error or error). An empty
+ * Optional counts as not_found.
+ */
+@Aspect
+@Component
+public class EventMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public EventMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * so.akira.events.controllers.EventController.*(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("events.controller", joinPoint);
+    }
+
+    @Around("execution(public * so.akira.events.repositories.EventRepository.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("events.repository", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(result);
+            return result;
+        } catch (CustomNoDataFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } catch (SQLConstraintViolationException e) {
+            outcome = "constraint_violation";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    static String outcome(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? "success" : "not_found";
+        }
+        if (!(result instanceof ResponseEntity<?> response)) {
+            return "success";
+        }
+        int status = response.getStatusCode().value();
+        if (status == 404) {
+            return "not_found";
+        }
+        if (status >= 500) {
+            return "error";
+        }
+        return status >= 400 ? "client_error" : "success";
+    }
+}
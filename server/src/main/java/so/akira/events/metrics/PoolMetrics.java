@@ -0,0 +1,102 @@
+package so.akira.events.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import so.akira.events.admission.AdmissionInterceptor;
+import so.akira.events.config.BoundedDataSource;
+import so.akira.events.config.DataSourceConfig;
+import so.akira.events.snapshot.EventSnapshot;
+import so.akira.events.writer.EventWriter;
+
+import javax.sql.DataSource;
+
+/**
+ * Gauges for the queues in front of SQLite that Hikari's own pool metrics
+ * (hikaricp.connections.*) can't see: reader permits, the writer thread and
+ * the admission limits ahead of both, and the reads the in-memory snapshot
+ * takes off them.
+ */
+@Component
+public class PoolMetrics implements MeterBinder {
+
+    private final DataSource readerDataSource;
+    private final EventWriter eventWriter;
+    private final AdmissionInterceptor admission;
+    private final EventSnapshot snapshot;
+
+    public PoolMetrics(@Qualifier(DataSourceConfig.READER) DataSource readerDataSource, EventWriter eventWriter,
+            AdmissionInterceptor admission, EventSnapshot snapshot) {
+        this.readerDataSource = readerDataSource;
+        this.eventWriter = eventWriter;
+        this.admission = admission;
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (readerDataSource instanceof BoundedDataSource bounded) {
+            Gauge.builder("events.reader.permits.available", bounded, BoundedDataSource::availablePermits)
+                    .description("Reader connection permits not currently held")
+                    .register(registry);
+            Gauge.builder("events.reader.permits.waiting", bounded, BoundedDataSource::queueLength)
+                    .description("Callers parked waiting for a reader permit")
+                    .register(registry);
+        }
+
+        Gauge.builder("events.writer.queue.depth", eventWriter, EventWriter::getQueueDepth)
+                .description("Writes waiting for the writer thread")
+                .register(registry);
+        Gauge.builder("events.writer.commit.size.max", eventWriter, EventWriter::getMaxCommitSize)
+                .description("Largest number of writes grouped into one commit")
+                .register(registry);
+        FunctionCounter.builder("events.writer.commits", eventWriter, EventWriter::getCommits)
+                .description("Transactions committed by the writer thread")
+                .register(registry);
+        FunctionCounter.builder("events.writer.writes", eventWriter, EventWriter::getWrites)
+                .description("Writes applied by the writer thread")
+                .register(registry);
+
+        Gauge.builder("events.admission.limit", admission, AdmissionInterceptor::getReadLimit)
+                .tag("type", "read")
+                .description("Current concurrency limit")
+                .register(registry);
+        Gauge.builder("events.admission.limit", admission, AdmissionInterceptor::getWriteLimit)
+                .tag("type", "write")
+                .description("Current concurrency limit")
+                .register(registry);
+        Gauge.builder("events.admission.in.flight", admission, AdmissionInterceptor::getReadsInFlight)
+                .tag("type", "read")
+                .description("Requests admitted and not yet completed")
+                .register(registry);
+        Gauge.builder("events.admission.in.flight", admission, AdmissionInterceptor::getWritesInFlight)
+                .tag("type", "write")
+                .description("Requests admitted and not yet completed")
+                .register(registry);
+        FunctionCounter.builder("events.admission.throttled", admission, AdmissionInterceptor::getThrottled)
+                .description("Requests rejected with 429 by a client's token bucket")
+                .register(registry);
+        FunctionCounter.builder("events.admission.shed", admission, AdmissionInterceptor::getShed)
+                .description("Requests rejected with 503 over a concurrency limit")
+                .register(registry);
+
+        if (snapshot.isEnabled()) {
+            Gauge.builder("events.snapshot.size", snapshot, EventSnapshot::getSize)
+                    .description("Events held in the in-memory snapshot")
+                    .register(registry);
+            FunctionCounter.builder("events.snapshot.reads", snapshot, EventSnapshot::getServed)
+                    .tag("result", "served")
+                    .description("List queries answered by the snapshot")
+                    .register(registry);
+            FunctionCounter.builder("events.snapshot.reads", snapshot, EventSnapshot::getFallbacks)
+                    .tag("result", "fallback")
+                    .description("List queries sent to SQLite because the snapshot was behind")
+                    .register(registry);
+        }
+    }
+}
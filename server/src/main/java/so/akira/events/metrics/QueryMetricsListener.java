@@ -0,0 +1,66 @@
+package so.akira.events.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+
+/**
+ * Records how long each query spends executing (including any SQLite busy
+ * wait) and fetching its results, as events.jooq.execute and
+ * events.jooq.fetch tagged by datasource, query type and outcome.
+ *
+ * One instance serves every execution of a DSLContext, so in-flight samples
+ * live in the ExecuteContext.
+ */
+public class QueryMetricsListener implements ExecuteListener {
+
+    private static final String EXECUTE = "events.jooq.execute";
+    private static final String FETCH = "events.jooq.fetch";
+
+    private final MeterRegistry meterRegistry;
+    private final String datasource;
+
+    public QueryMetricsListener(MeterRegistry meterRegistry, String datasource) {
+        this.meterRegistry = meterRegistry;
+        this.datasource = datasource;
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        ctx.data(EXECUTE, Timer.start(meterRegistry));
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        stop(ctx, EXECUTE, "success");
+    }
+
+    @Override
+    public void fetchStart(ExecuteContext ctx) {
+        ctx.data(FETCH, Timer.start(meterRegistry));
+    }
+
+    @Override
+    public void fetchEnd(ExecuteContext ctx) {
+        stop(ctx, FETCH, "success");
+    }
+
+    // Called for every execution; only samples cut short by an exception are left
+    @Override
+    public void end(ExecuteContext ctx) {
+        stop(ctx, EXECUTE, "error");
+        stop(ctx, FETCH, "error");
+    }
+
+    private void stop(ExecuteContext ctx, String name, String outcome) {
+        if (ctx.data().remove(name) instanceof Timer.Sample sample) {
+            sample.stop(Timer.builder(name)
+                    .tag("datasource", datasource)
+                    .tag("type", ctx.type().name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package so.akira.events.models;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Outcome of one element of a batch request. {@code index} is the position of
+ * the element in the request body.
+ */
+public class BatchItemResult {
+    private int index;
+    private Integer id;
+    private String status;
+    private String message;
+    private Map<String, String> errors;
+
+    public BatchItemResult(int index, Integer id, String status, String message, Map<String, String> errors) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult success(int index, int id) {
+        return new BatchItemResult(index, id, "success", null, null);
+    }
+
+    public static BatchItemResult error(int index, Integer id, String message) {
+        return new BatchItemResult(index, id, "error", message, null);
+    }
+
+    public static BatchItemResult invalid(int index, Integer id, Map<String, String> errors) {
+        return new BatchItemResult(index, id, "error", "Validation failed", errors);
+    }
+
+    @JsonIgnore
+    public boolean isSuccess() {
+        return "success".equals(status);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+}
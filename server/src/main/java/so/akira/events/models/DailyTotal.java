@@ -0,0 +1,32 @@
+package so.akira.events.models;
+
+/**
+ * Number of events starting on one UTC day, and the sum of their prices.
+ */
+public class DailyTotal {
+    private final String date;
+    private final long count;
+    private final long priceTotal;
+
+    public DailyTotal(String date, long count, long priceTotal) {
+        this.date = date;
+        this.count = count;
+        this.priceTotal = priceTotal;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getPriceTotal() {
+        return priceTotal;
+    }
+
+    public String toString() {
+        return "DailyTotal{date=" + date + ", count=" + count + ", priceTotal=" + priceTotal + "}";
+    }
+}
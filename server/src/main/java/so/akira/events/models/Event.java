@@ -32,6 +32,7 @@ public class Event {
 
     private int createdAt;
     private int updatedAt;
+    private int version;
 
     public Event() {
     }
@@ -139,8 +140,17 @@ public class Event {
         this.updatedAt = updatedAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public String toString() {
         return "Event{title=" + title + ", price=" + price + ", status=" + status + ", startDate=" + startDate
-                + ", endDate=" + endDate + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt + "}";
+                + ", endDate=" + endDate + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt + ", version="
+                + version + "}";
     }
 }
@@ -0,0 +1,44 @@
+package so.akira.events.models;
+
+/**
+ * One committed mutation, as sent on the change feed. {@code event} is the row
+ * after the change (absent for deletes); its version lets a client drop a
+ * delta older than what it already holds.
+ */
+public class EventChange {
+    public static final String INSERT = "insert";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private final long seq;
+    private final String type;
+    private final int id;
+    private final Event event;
+
+    public EventChange(long seq, String type, int id, Event event) {
+        this.seq = seq;
+        this.type = type;
+        this.id = id;
+        this.event = event;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public String toString() {
+        return "EventChange{seq=" + seq + ", type=" + type + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,59 @@
+package so.akira.events.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over a (sort key, id) ordering of events, e.g. (start_date, id).
+ * Encoded as url-safe base64 so clients treat it as a token, not as data.
+ */
+public class EventCursor {
+    private final int key;
+    private final int id;
+
+    public EventCursor(int key, int id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static EventCursor of(Event event) {
+        return of(event, EventSort.START_DATE);
+    }
+
+    public static EventCursor of(Event event, EventSort sort) {
+        return new EventCursor(sort.keyOf(event), event.getId());
+    }
+
+    public static EventCursor decode(String token) throws IllegalArgumentException {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator <= 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+
+        try {
+            int key = Integer.parseInt(raw.substring(0, separator));
+            int id = Integer.parseInt(raw.substring(separator + 1));
+            return new EventCursor(key, id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String toString() {
+        return "EventCursor{key=" + key + ", id=" + id + "}";
+    }
+}
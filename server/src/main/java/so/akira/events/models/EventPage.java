@@ -0,0 +1,29 @@
+package so.akira.events.models;
+
+import java.util.List;
+
+public class EventPage {
+    private List<Event> items;
+    private String nextCursor;
+
+    public EventPage(List<Event> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Event> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Event> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
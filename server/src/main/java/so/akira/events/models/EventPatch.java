@@ -0,0 +1,92 @@
+package so.akira.events.models;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import so.akira.events.validators.event.ValidStartDate;
+
+/**
+ * Body of PATCH /api/v1/events/{id}. Absent (null) fields are left as they are.
+ * {@code version}, when given, is the version the client edited, checked like
+ * an If-Match. Whether the dates still line up is checked by the database.
+ */
+public class EventPatch {
+
+    // Not @NotBlank, which would also reject leaving the title out
+    @Pattern(regexp = "(?s).*\\S.*", message = "title must not be blank")
+    @Size(min = 3, max = 255, message = "title must be between 3 and 255 characters")
+    private String title;
+
+    @Positive(message = "price must be a positive number")
+    private Integer price;
+
+    @Pattern(regexp = "^(completed|paused|started)$", message = "Status must be one of: completed, paused, started")
+    private String status;
+
+    @Positive(message = "startDate must be a positive number")
+    @ValidStartDate
+    private Integer startDate;
+
+    @Positive(message = "endDate must be a positive number")
+    private Integer endDate;
+
+    private Integer version;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Integer getPrice() {
+        return price;
+    }
+
+    public void setPrice(Integer price) {
+        this.price = price;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Integer startDate) {
+        this.startDate = startDate;
+    }
+
+    public Integer getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Integer endDate) {
+        this.endDate = endDate;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public boolean isEmpty() {
+        return title == null && price == null && status == null && startDate == null && endDate == null;
+    }
+
+    @Override
+    public String toString() {
+        return "EventPatch{title=" + title + ", price=" + price + ", status=" + status + ", startDate=" + startDate
+                + ", endDate=" + endDate + ", version=" + version + "}";
+    }
+}
@@ -0,0 +1,102 @@
+package so.akira.events.models;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Query parameters of GET /api/v1/events/search. Every filter is optional;
+ * {@code from}/{@code to} bound the event window as start_date >= from and
+ * end_date <= to.
+ */
+public class EventSearchCriteria {
+
+    @Pattern(regexp = "^(completed|paused|started)$", message = "Status must be one of: completed, paused, started")
+    private String status;
+
+    @PositiveOrZero(message = "minPrice must be zero or a positive number")
+    private Integer minPrice;
+
+    @PositiveOrZero(message = "maxPrice must be zero or a positive number")
+    private Integer maxPrice;
+
+    @PositiveOrZero(message = "from must be zero or a positive number")
+    private Integer from;
+
+    @PositiveOrZero(message = "to must be zero or a positive number")
+    private Integer to;
+
+    @Pattern(regexp = "^(startDate|endDate|price)$", message = "sort must be one of: startDate, endDate, price")
+    private String sort = EventSort.START_DATE.getParam();
+
+    @Pattern(regexp = "^(asc|desc)$", message = "order must be one of: asc, desc")
+    private String order = "asc";
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Integer minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Integer getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Integer maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getFrom() {
+        return from;
+    }
+
+    public void setFrom(Integer from) {
+        this.from = from;
+    }
+
+    public Integer getTo() {
+        return to;
+    }
+
+    public void setTo(Integer to) {
+        this.to = to;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    public void setOrder(String order) {
+        this.order = order;
+    }
+
+    public EventSort getSortField() {
+        return EventSort.fromParam(sort);
+    }
+
+    public boolean isDescending() {
+        return "desc".equals(order);
+    }
+
+    public String toString() {
+        return "EventSearchCriteria{status=" + status + ", minPrice=" + minPrice + ", maxPrice=" + maxPrice
+                + ", from=" + from + ", to=" + to + ", sort=" + sort + ", order=" + order + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package so.akira.events.models;
+
+/**
+ * Sortable event columns. Only integer columns are exposed so every
+ * ordering can be paged with an {@link EventCursor}.
+ */
+public enum EventSort {
+    START_DATE("startDate"),
+    END_DATE("endDate"),
+    PRICE("price");
+
+    private final String param;
+
+    EventSort(String param) {
+        this.param = param;
+    }
+
+    public static EventSort fromParam(String param) throws IllegalArgumentException {
+        for (EventSort sort : values()) {
+            if (sort.param.equals(param)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort: " + param);
+    }
+
+    public int keyOf(Event event) {
+        return switch (this) {
+            case START_DATE -> event.getStartDate();
+            case END_DATE -> event.getEndDate();
+            case PRICE -> event.getPrice();
+        };
+    }
+
+    public String getParam() {
+        return param;
+    }
+}
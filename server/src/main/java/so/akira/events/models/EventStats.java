@@ -0,0 +1,30 @@
+package so.akira.events.models;
+
+import java.util.List;
+
+/**
+ * Totals over every event, and per status.
+ */
+public class EventStats {
+    private final long count;
+    private final long priceTotal;
+    private final List<StatusTotal> byStatus;
+
+    public EventStats(List<StatusTotal> byStatus) {
+        this.count = byStatus.stream().mapToLong(StatusTotal::getCount).sum();
+        this.priceTotal = byStatus.stream().mapToLong(StatusTotal::getPriceTotal).sum();
+        this.byStatus = byStatus;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getPriceTotal() {
+        return priceTotal;
+    }
+
+    public List<StatusTotal> getByStatus() {
+        return byStatus;
+    }
+}
@@ -0,0 +1,32 @@
+package so.akira.events.models;
+
+/**
+ * Number of events and sum of their prices for one status.
+ */
+public class StatusTotal {
+    private final String status;
+    private final long count;
+    private final long priceTotal;
+
+    public StatusTotal(String status, long count, long priceTotal) {
+        this.status = status;
+        this.count = count;
+        this.priceTotal = priceTotal;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getPriceTotal() {
+        return priceTotal;
+    }
+
+    public String toString() {
+        return "StatusTotal{status=" + status + ", count=" + count + ", priceTotal=" + priceTotal + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package so.akira.events.models;
+
+/**
+ * Write counter and last write time (epoch seconds) of a table, maintained by
+ * triggers. Any insert, update or delete moves both forward.
+ */
+public class TableVersion {
+    private final long version;
+    private final long updatedAt;
+
+    public TableVersion(long version, long updatedAt) {
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String toString() {
+        return "TableVersion{version=" + version + ", updatedAt=" + updatedAt + "}";
+    }
+}
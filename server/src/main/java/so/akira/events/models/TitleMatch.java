@@ -0,0 +1,30 @@
+package so.akira.events.models;
+
+/**
+ * One full-text title hit. {@code highlight} is the HTML-escaped title with the
+ * matched terms wrapped in &lt;mark&gt;; {@code score} is the BM25 relevance,
+ * higher is better.
+ */
+public class TitleMatch {
+    private final Event event;
+    private final String highlight;
+    private final double score;
+
+    public TitleMatch(Event event, String highlight, double score) {
+        this.event = event;
+        this.highlight = highlight;
+        this.score = score;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public String getHighlight() {
+        return highlight;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,26 @@
+package so.akira.events.models;
+
+import java.util.List;
+
+/**
+ * A page of title matches in relevance order. Relevance shifts as events are
+ * written, so pages are addressed by offset rather than a keyset cursor;
+ * {@code nextOffset} is null on the last page.
+ */
+public class TitleSearchPage {
+    private final List<TitleMatch> items;
+    private final Integer nextOffset;
+
+    public TitleSearchPage(List<TitleMatch> items, Integer nextOffset) {
+        this.items = items;
+        this.nextOffset = nextOffset;
+    }
+
+    public List<TitleMatch> getItems() {
+        return items;
+    }
+
+    public Integer getNextOffset() {
+        return nextOffset;
+    }
+}
@@ -0,0 +1,41 @@
+package so.akira.events.repositories;
+
+import org.jooq.RecordMapper;
+
+import so.akira.events.db.tables.records.EventsRecord;
+import so.akira.events.models.Event;
+
+/**
+ * Maps an EventsRecord onto the all-args Event constructor through its typed
+ * getters. Replaces fetchInto(Event.class), whose DefaultRecordMapper reflects
+ * over Event's constructors and setters to do the same. jOOQ still builds one
+ * EventsRecord (boxed values included) per row before this runs; only the
+ * reflective step from record to Event is gone.
+ */
+public final class EventRecordMapper implements RecordMapper<EventsRecord, Event> {
+
+    public static final EventRecordMapper INSTANCE = new EventRecordMapper();
+
+    private EventRecordMapper() {
+    }
+
+    @Override
+    public Event map(EventsRecord record) {
+        Event event = new Event(
+                intValue(record.getId()),
+                record.getTitle(),
+                intValue(record.getPrice()),
+                record.getStatus(),
+                intValue(record.getStartDate()),
+                intValue(record.getEndDate()),
+                intValue(record.getCreatedAt()),
+                intValue(record.getUpdatedAt()));
+        event.setVersion(intValue(record.getVersion()));
+        return event;
+    }
+
+    // created_at and updated_at are nullable; fetchInto left the int field at 0 for NULL too
+    private static int intValue(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -1,76 +1,504 @@
 package so.akira.events.repositories;
 
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.BatchBindStep;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep4;
+import org.jooq.Query;
+import org.jooq.Record2;
+import org.jooq.ResultQuery;
+import org.jooq.Row2;
+import org.jooq.Select;
+import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.exception.NoDataFoundException;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sqlite.SQLiteErrorCode;
 import org.sqlite.SQLiteException;
 
+import so.akira.events.config.DataSourceConfig;
 import so.akira.events.exceptions.SQLConstraintViolationException;
+import so.akira.events.export.EventSink;
 import so.akira.events.exceptions.CustomNoDataFoundException;
+import so.akira.events.exceptions.VersionConflictException;
+import so.akira.events.logging.RateLimitedLogger;
+import so.akira.events.models.BatchItemResult;
+import so.akira.events.models.DailyTotal;
 import so.akira.events.models.Event;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventPatch;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.models.EventSort;
+import so.akira.events.models.StatusTotal;
+import so.akira.events.models.TableVersion;
+import so.akira.events.models.TitleMatch;
+import so.akira.events.models.TitleSearchPage;
+import so.akira.events.db.tables.records.EventsRecord;
+import so.akira.events.db.tables.records.TableVersionsRecord;
 
+import static so.akira.events.db.tables.EventDailyStarts.EVENT_DAILY_STARTS;
+import static so.akira.events.db.tables.EventStatusTotals.EVENT_STATUS_TOTALS;
 import static so.akira.events.db.tables.Events.EVENTS;
+import static so.akira.events.db.tables.TableVersions.TABLE_VERSIONS;
 
+import java.io.IOException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Repository
 public class EventRepository {
 
-    private static final Logger logger = LoggerFactory.getLogger(EventRepository.class);
+    private static final RateLimitedLogger logger = RateLimitedLogger.getLogger(EventRepository.class);
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 10000;
+    public static final int MAX_STATS_DAYS = 366;
+    public static final int MAX_SEARCH_OFFSET = 1000;
+    public static final String COMPLETED = "completed";
+
+    // 4 bind values per inserted row keeps a chunk far below SQLITE_MAX_VARIABLE_NUMBER
+    private static final int BATCH_CHUNK_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    // Full-text index over events.title, see V5__event_title_fts.sql (not generated, jOOQ skips virtual tables)
+    private static final Table<?> EVENTS_FTS = DSL.table(DSL.name("events_fts"));
+    private static final Pattern SEARCH_WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MAX_SEARCH_TERMS = 16;
+    // Soft-deleted rows stay in events as tombstones until purged, see V8__event_soft_delete.sql.
+    // Every read filters on this, which is also the WHERE of the partial indexes it relies on.
+    private static final Condition LIVE = EVENTS.DELETED_AT.isNull();
+
+    // Interval index over (start_date, end_date), see V6__event_interval_index.sql
+    private static final Table<?> EVENTS_RTREE = DSL.table(DSL.name("events_rtree"));
+    private static final Field<Integer> RTREE_ID = DSL.field(DSL.name("events_rtree", "id"), Integer.class);
+    private static final Field<Integer> RTREE_START = DSL.field(DSL.name("events_rtree", "start_date"), Integer.class);
+    private static final Field<Integer> RTREE_END = DSL.field(DSL.name("events_rtree", "end_date"), Integer.class);
+    private static final char HIGHLIGHT_OPEN_CHAR = '\u0002';
+    private static final char HIGHLIGHT_CLOSE_CHAR = '\u0003';
+    private static final String HIGHLIGHT_OPEN = String.valueOf(HIGHLIGHT_OPEN_CHAR);
+    private static final String HIGHLIGHT_CLOSE = String.valueOf(HIGHLIGHT_CLOSE_CHAR);
+
     private final DSLContext db;
+    private final DSLContext reader;
 
-    public EventRepository(DSLContext db) {
+    /**
+     * @param db     writer context, also used for reads inside write transactions
+     * @param reader read-only context for plain reads
+     */
+    public EventRepository(DSLContext db, @Qualifier(DataSourceConfig.READER) DSLContext reader) {
         this.db = db;
+        this.reader = reader;
     }
 
     public Event getEventById(int id) throws CustomNoDataFoundException {
+        return findEventById(id).orElseThrow(() -> new CustomNoDataFoundException("No event found with id: " + id));
+    }
+
+    /**
+     * The live event with this id, if any. A miss is an ordinary outcome (every
+     * 404 on GET /api/v1/events/{id}), so it is neither thrown nor logged.
+     */
+    public Optional<Event> findEventById(int id) {
         try {
-            Event event = db.selectFrom(EVENTS)
-                    .where(EVENTS.ID.eq(id)).limit(1)
-                    .fetchOneInto(Event.class);
-            if (event == null) {
-                throw new CustomNoDataFoundException("No event found with id: " + id);
-            }
-            return event;
-        } catch (NoDataFoundException e) {
-            logger.error("Error fetching event with id: {}", id, e);
-            throw new CustomNoDataFoundException("No event found with id: " + id, e);
+            return reader.selectFrom(EVENTS)
+                    .where(EVENTS.ID.eq(id)).and(LIVE).limit(1)
+                    .fetchOptional(EventRecordMapper.INSTANCE);
         } catch (DataAccessException e) {
             logger.error("Error fetching event with id: {}", id, e);
             throw new RuntimeException("Error fetching event bud id: " + id, e);
         }
     }
 
-    public List<Event> getEvents() throws CustomNoDataFoundException {
+    public List<Event> getEvents() {
+        return getEvents(null, DEFAULT_PAGE_SIZE).getItems();
+    }
+
+    /**
+     * Keyset pagination over (start_date, id), served by idx_events_start_date
+     * (the index implicitly carries the rowid, so no separate sort is needed).
+     * One extra row is fetched to know whether a next page exists. Past the last
+     * event the page is empty, with no next cursor.
+     */
+    public EventPage getEvents(EventCursor cursor, int limit) {
         try {
-            List<Event> events = db.selectFrom(EVENTS)
-                    .limit(20)
-                    .fetchInto(Event.class);
+            Condition after = cursor == null
+                    ? DSL.noCondition()
+                    : DSL.row(EVENTS.START_DATE, EVENTS.ID).gt(cursor.getKey(), cursor.getId());
 
-            if (events.isEmpty()) {
-                logger.error("No events found");
-                throw new CustomNoDataFoundException("No events found");
-            }
+            List<Event> events = reader.selectFrom(EVENTS)
+                    .where(LIVE).and(after)
+                    .orderBy(EVENTS.START_DATE.asc(), EVENTS.ID.asc())
+                    .limit(limit + 1)
+                    .fetch(EventRecordMapper.INSTANCE);
 
-            return events;
-        } catch (NoDataFoundException e) {
-            logger.error("No events found", e);
-            throw new CustomNoDataFoundException("No events found", e);
+            return toPage(events, limit, EventSort.START_DATE);
         } catch (DataAccessException e) {
             logger.error("Error fetching events", e);
             throw new RuntimeException("Error fetching events", e);
         }
     }
 
+    /**
+     * Filtered search. Each supported filter lands on an index from
+     * V2__event_search_indexes.sql, so SQLite range-scans instead of walking the table.
+     */
+    public EventPage searchEvents(EventSearchCriteria criteria, EventCursor cursor, int limit) {
+        try {
+            List<Event> events = buildSearchQuery(criteria, cursor, limit + 1)
+                    .fetch(EventRecordMapper.INSTANCE);
+
+            return toPage(events, limit, criteria.getSortField());
+        } catch (DataAccessException e) {
+            logger.error("Error searching events with criteria: {}", criteria, e);
+            throw new RuntimeException("Error searching events", e);
+        }
+    }
+
+    Select<EventsRecord> buildSearchQuery(EventSearchCriteria criteria, EventCursor cursor, int limit) {
+        Condition condition = DSL.noCondition();
+
+        if (criteria.getStatus() != null) {
+            condition = condition.and(EVENTS.STATUS.eq(criteria.getStatus()));
+        }
+        if (criteria.getMinPrice() != null) {
+            condition = condition.and(EVENTS.PRICE.ge(criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            condition = condition.and(EVENTS.PRICE.le(criteria.getMaxPrice()));
+        }
+        if (criteria.getFrom() != null) {
+            condition = condition.and(EVENTS.START_DATE.ge(criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            condition = condition.and(EVENTS.END_DATE.le(criteria.getTo()));
+        }
+
+        Field<Integer> sortField = switch (criteria.getSortField()) {
+            case START_DATE -> EVENTS.START_DATE;
+            case END_DATE -> EVENTS.END_DATE;
+            case PRICE -> EVENTS.PRICE;
+        };
+
+        // Without ANALYZE stats SQLite would rather walk the sort column's index than
+        // range-scan the filtered one. Unless that column is filtered itself, order by
+        // +column (SQLite's idiom to opt an expression out of index use) so the filter
+        // picks the index and only the matching rows get sorted.
+        boolean sortFieldFiltered = switch (criteria.getSortField()) {
+            case START_DATE -> criteria.getFrom() != null;
+            case END_DATE -> criteria.getTo() != null;
+            case PRICE -> criteria.getMinPrice() != null || criteria.getMaxPrice() != null;
+        };
+        Field<Integer> orderField = condition.equals(DSL.noCondition()) || sortFieldFiltered
+                ? sortField
+                : DSL.field("+{0}", sortField.getDataType(), sortField);
+
+        boolean descending = criteria.isDescending();
+        if (cursor != null) {
+            Row2<Integer, Integer> after = DSL.row(sortField, EVENTS.ID);
+            condition = condition.and(descending
+                    ? after.lt(cursor.getKey(), cursor.getId())
+                    : after.gt(cursor.getKey(), cursor.getId()));
+        }
+
+        return reader.selectFrom(EVENTS)
+                .where(LIVE).and(condition)
+                .orderBy(descending ? orderField.desc() : orderField.asc(), descending ? EVENTS.ID.desc() : EVENTS.ID.asc())
+                .limit(limit);
+    }
+
+    /**
+     * Events whose [start_date, end_date) interval overlaps [from, to), ordered by
+     * (start_date, id) with keyset pagination. Candidates come from a descent of the
+     * events_rtree interval index, which bounds both ends at once; the CROSS JOIN
+     * pins it as the outer loop so each match is one rowid lookup into events.
+     */
+    public EventPage getEventsOverlapping(int from, int to, EventCursor cursor, int limit) {
+        try {
+            return toPage(buildOverlapQuery(from, to, cursor, limit + 1).fetch(EventRecordMapper.INSTANCE), limit,
+                    EventSort.START_DATE);
+        } catch (DataAccessException e) {
+            logger.error("Error fetching events overlapping {} to {}", from, to, e);
+            throw new RuntimeException("Error fetching overlapping events", e);
+        }
+    }
+
+    ResultQuery<EventsRecord> buildOverlapQuery(int from, int to, EventCursor cursor, int limit) {
+        Condition condition = RTREE_START.lt(to).and(RTREE_END.gt(from));
+        if (cursor != null) {
+            // The plain bound goes to the R*Tree, the row comparison settles ties on start_date
+            condition = condition.and(RTREE_START.ge(cursor.getKey()))
+                    .and(DSL.row(RTREE_START, RTREE_ID).gt(cursor.getKey(), cursor.getId()));
+        }
+
+        return reader.select(EVENTS.fields())
+                .from(EVENTS_RTREE)
+                .crossJoin(EVENTS)
+                .where(EVENTS.ID.eq(RTREE_ID))
+                .and(LIVE)
+                .and(condition)
+                .orderBy(RTREE_START.asc(), RTREE_ID.asc())
+                .limit(limit)
+                .coerce(EVENTS);
+    }
+
+    /**
+     * Version of the whole events table, bumped by triggers on every write. One
+     * primary key lookup, so callers can revalidate a list without running it.
+     */
+    public TableVersion getEventsVersion() {
+        try {
+            return getEventsVersion(reader);
+        } catch (DataAccessException e) {
+            logger.error("Error fetching events table version", e);
+            throw new RuntimeException("Error fetching events table version", e);
+        }
+    }
+
+    private static TableVersion getEventsVersion(DSLContext ctx) {
+        TableVersionsRecord record = ctx.selectFrom(TABLE_VERSIONS)
+                .where(TABLE_VERSIONS.NAME.eq(EVENTS.getName()))
+                .fetchOne();
+        if (record == null) {
+            throw new IllegalStateException("No table version row for " + EVENTS.getName());
+        }
+        return new TableVersion(record.getVersion(), record.getUpdatedAt());
+    }
+
+    /**
+     * Full-text search over titles through the events_fts index, best BM25 match
+     * first. Every word must match and the last one also matches as a prefix, so
+     * the same call serves type-ahead. Returns an empty page when {@code text}
+     * holds no searchable words.
+     */
+    public TitleSearchPage searchTitles(String text, int offset, int limit) {
+        String match = toMatchQuery(text);
+        if (match == null) {
+            return new TitleSearchPage(List.of(), null);
+        }
+
+        Field<Double> bm25 = DSL.field("bm25({0})", Double.class, EVENTS_FTS);
+        Field<String> highlight = DSL.field("highlight({0}, 0, {1}, {2})", String.class, EVENTS_FTS,
+                DSL.inline(HIGHLIGHT_OPEN), DSL.inline(HIGHLIGHT_CLOSE));
+
+        try {
+            List<TitleMatch> matches = reader.select(EVENTS.fields())
+                    .select(highlight, bm25)
+                    .from(EVENTS_FTS)
+                    .join(EVENTS).on(EVENTS.ID.eq(DSL.field(DSL.name(EVENTS_FTS.getName(), "rowid"), Integer.class)))
+                    .where(DSL.condition("{0} MATCH {1}", EVENTS_FTS, DSL.val(match)))
+                    .and(LIVE)
+                    .orderBy(bm25, EVENTS.ID)
+                    .limit(limit + 1)
+                    .offset(offset)
+                    .fetch(record -> new TitleMatch(EventRecordMapper.INSTANCE.map(record.into(EVENTS)),
+                            toHtmlHighlight(record.get(highlight)), -record.get(bm25)));
+
+            if (matches.size() > limit) {
+                return new TitleSearchPage(matches.subList(0, limit), offset + limit);
+            }
+            return new TitleSearchPage(matches, null);
+        } catch (DataAccessException e) {
+            logger.error("Error searching event titles for: {}", text, e);
+            throw new RuntimeException("Error searching event titles", e);
+        }
+    }
+
+    /**
+     * FTS5 query for free text: each word becomes a quoted term (so no FTS5
+     * syntax gets through) and the last one a prefix term. Null without words.
+     */
+    static String toMatchQuery(String text) {
+        List<String> terms = new ArrayList<>();
+        Matcher words = SEARCH_WORD.matcher(text == null ? "" : text);
+        while (words.find() && terms.size() < MAX_SEARCH_TERMS) {
+            terms.add('"' + words.group() + '"');
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        return String.join(" ", terms) + "*";
+    }
+
+    // highlight() works on the raw title, so escape it here with our own markers turned into <mark>
+    private static String toHtmlHighlight(String highlighted) {
+        StringBuilder html = new StringBuilder(highlighted.length() + 16);
+        for (int i = 0; i < highlighted.length(); i++) {
+            char c = highlighted.charAt(i);
+            switch (c) {
+                case HIGHLIGHT_OPEN_CHAR -> html.append("<mark>");
+                case HIGHLIGHT_CLOSE_CHAR -> html.append("</mark>");
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '&' -> html.append("&amp;");
+                case '"' -> html.append("&quot;");
+                case '\'' -> html.append("&#39;");
+                default -> html.append(c);
+            }
+        }
+        return html.toString();
+    }
+
+    /**
+     * Per-status totals from the trigger-maintained event_status_totals table.
+     */
+    public List<StatusTotal> getStatusTotals() {
+        try {
+            return reader.select(EVENT_STATUS_TOTALS.STATUS, EVENT_STATUS_TOTALS.EVENT_COUNT.coerce(Long.class),
+                    EVENT_STATUS_TOTALS.PRICE_TOTAL.coerce(Long.class))
+                    .from(EVENT_STATUS_TOTALS)
+                    .orderBy(EVENT_STATUS_TOTALS.STATUS)
+                    .fetch(record -> new StatusTotal(record.value1(), record.value2(), record.value3()));
+        } catch (DataAccessException e) {
+            logger.error("Error fetching event status totals", e);
+            throw new RuntimeException("Error fetching event status totals", e);
+        }
+    }
+
+    /**
+     * Per-day totals of events starting between {@code from} and {@code to}
+     * (inclusive, UTC, either may be null), a primary key range scan over the
+     * trigger-maintained event_daily_starts table. Days without events are absent.
+     */
+    public List<DailyTotal> getDailyTotals(LocalDate from, LocalDate to, int limit) {
+        Condition condition = DSL.noCondition();
+        if (from != null) {
+            condition = condition.and(EVENT_DAILY_STARTS.DAY.ge((int) from.toEpochDay()));
+        }
+        if (to != null) {
+            condition = condition.and(EVENT_DAILY_STARTS.DAY.le((int) to.toEpochDay()));
+        }
+
+        try {
+            return reader.select(EVENT_DAILY_STARTS.DAY, EVENT_DAILY_STARTS.EVENT_COUNT.coerce(Long.class),
+                    EVENT_DAILY_STARTS.PRICE_TOTAL.coerce(Long.class))
+                    .from(EVENT_DAILY_STARTS)
+                    .where(condition)
+                    .orderBy(EVENT_DAILY_STARTS.DAY)
+                    .limit(limit)
+                    .fetch(record -> new DailyTotal(LocalDate.ofEpochDay(record.value1()).toString(), record.value2(),
+                            record.value3()));
+        } catch (DataAccessException e) {
+            logger.error("Error fetching event daily totals from {} to {}", from, to, e);
+            throw new RuntimeException("Error fetching event daily totals", e);
+        }
+    }
+
+    private EventPage toPage(List<Event> events, int limit, EventSort sort) {
+        String nextCursor = null;
+        if (events.size() > limit) {
+            events = events.subList(0, limit);
+            nextCursor = EventCursor.of(events.get(limit - 1), sort).encode();
+        }
+
+        return new EventPage(events, nextCursor);
+    }
+
+    /**
+     * Streams every event in id order to {@code sink} through a lazy cursor, so only
+     * EXPORT_FETCH_SIZE rows are held at a time. The reader connection, and with it
+     * one read snapshot, stays open until the last row is written: a slow consumer
+     * holds back WAL checkpoints for that long.
+     */
+    public long exportEvents(EventSink sink) throws IOException {
+        long count = 0;
+        try (Cursor<EventsRecord> cursor = reader.selectFrom(EVENTS)
+                .where(LIVE)
+                .orderBy(EVENTS.ID.asc())
+                .fetchSize(EXPORT_FETCH_SIZE)
+                .fetchLazy()) {
+            for (EventsRecord record : cursor) {
+                sink.write(EventRecordMapper.INSTANCE.map(record));
+                count++;
+            }
+            return count;
+        } catch (DataAccessException e) {
+            logger.error("Error exporting events after {} rows", count, e);
+            throw new RuntimeException("Error exporting events", e);
+        }
+    }
+
+    /**
+     * Hands every live event to {@code consumer} and returns the events table
+     * version. Both are read in one transaction, so the version is exactly the
+     * one of the rows seen.
+     */
+    public long scanEvents(Consumer<Event> consumer) {
+        try {
+            return reader.transactionResult(configuration -> {
+                DSLContext tx = configuration.dsl();
+                long version = getEventsVersion(tx).getVersion();
+                try (Cursor<EventsRecord> cursor = tx.selectFrom(EVENTS)
+                        .where(LIVE)
+                        .fetchSize(EXPORT_FETCH_SIZE)
+                        .fetchLazy()) {
+                    for (EventsRecord record : cursor) {
+                        consumer.accept(EventRecordMapper.INSTANCE.map(record));
+                    }
+                }
+                return version;
+            });
+        } catch (DataAccessException e) {
+            logger.error("Error scanning events", e);
+            throw new RuntimeException("Error scanning events", e);
+        }
+    }
+
+    /**
+     * Reads the given events as they are now: live ones go to {@code live}, the
+     * ids of deleted or purged ones to {@code gone}. Returns the events table
+     * version, read in the same transaction.
+     */
+    public long fetchEvents(Collection<Integer> ids, Consumer<Event> live, IntConsumer gone) {
+        try {
+            return reader.transactionResult(configuration -> {
+                DSLContext tx = configuration.dsl();
+                long version = getEventsVersion(tx).getVersion();
+                List<Integer> all = new ArrayList<>(ids);
+                for (int from = 0; from < all.size(); from += BATCH_CHUNK_SIZE) {
+                    List<Integer> chunk = all.subList(from, Math.min(from + BATCH_CHUNK_SIZE, all.size()));
+                    Set<Integer> missing = new HashSet<>(chunk);
+                    for (EventsRecord record : tx.selectFrom(EVENTS).where(EVENTS.ID.in(chunk)).and(LIVE).fetch()) {
+                        missing.remove(record.getId());
+                        live.accept(EventRecordMapper.INSTANCE.map(record));
+                    }
+                    missing.forEach(gone::accept);
+                }
+                return version;
+            });
+        } catch (DataAccessException e) {
+            logger.error("Error fetching {} events", ids.size(), e);
+            throw new RuntimeException("Error fetching events", e);
+        }
+    }
+
     public void insertEvent(Event event) throws SQLIntegrityConstraintViolationException {
+        insertEvent(db, event);
+    }
+
+    /**
+     * Same as {@link #insertEvent(Event)}, inside the caller's transaction.
+     */
+    public void insertEvent(DSLContext tx, Event event) {
         try {
-            int id = db.insertInto(EVENTS, EVENTS.TITLE, EVENTS.PRICE, EVENTS.START_DATE, EVENTS.END_DATE)
+            int id = tx.insertInto(EVENTS, EVENTS.TITLE, EVENTS.PRICE, EVENTS.START_DATE, EVENTS.END_DATE)
                     .values(event.getTitle(), event.getPrice(), event.getStartDate(), event.getEndDate())
                     .returning(EVENTS.ID)
                     .fetchOne()
@@ -79,49 +507,441 @@ public class EventRepository {
             event.setId(id);
 
         } catch (DataAccessException e) {
-            logger.error("Error inserting event", e);
+            if (!isConstraintViolation(e)) {
+                logger.error("Error inserting event", e);
+                throw new RuntimeException("Error inserting event", e);
+            }
+            logger.debug("Event not inserted, it broke a constraint: {}", constraintMessage(e));
             throw new SQLConstraintViolationException("error inserting event", e);
         }
     }
 
     public void updateEvent(int id, Event event)
             throws CustomNoDataFoundException, SQLIntegrityConstraintViolationException {
+        updateEvent(db, id, event);
+    }
+
+    /**
+     * Same as {@link #updateEvent(int, Event)}, inside the caller's transaction.
+     */
+    public void updateEvent(DSLContext tx, int id, Event event) throws CustomNoDataFoundException {
+        updateEvent(tx, id, event, null);
+    }
+
+    /**
+     * Overwrites every column of the event, but only while it is still at
+     * {@code expectedVersion} (any version when null). Throws
+     * {@link VersionConflictException} when someone else updated it first.
+     */
+    public void updateEvent(DSLContext tx, int id, Event event, Integer expectedVersion)
+            throws CustomNoDataFoundException, VersionConflictException {
         try {
-            int updateRows = db.update(EVENTS)
+            EventsRecord updated = tx.update(EVENTS)
                     .set(EVENTS.TITLE, event.getTitle())
                     .set(EVENTS.PRICE, event.getPrice())
                     .set(EVENTS.STATUS, event.getStatus())
                     .set(EVENTS.START_DATE, event.getStartDate())
                     .set(EVENTS.END_DATE, event.getEndDate())
                     .set(EVENTS.UPDATED_AT, DSL.field("strftime('%s', 'now')", Integer.class))
-                    .where(EVENTS.ID.eq(id))
-                    .execute();
-            if (updateRows == 0) {
-                throw new CustomNoDataFoundException("No event found with id: " + id);
+                    .set(EVENTS.VERSION, EVENTS.VERSION.plus(DSL.inline(1)))
+                    .where(EVENTS.ID.eq(id)).and(LIVE).and(versionCondition(expectedVersion))
+                    .returning(EVENTS.CREATED_AT, EVENTS.UPDATED_AT, EVENTS.VERSION)
+                    .fetchOne();
+            if (updated == null) {
+                throw missingOrConflict(tx, id, expectedVersion);
             }
+
+            event.setId(id);
+            event.setCreatedAt(updated.getCreatedAt() == null ? 0 : updated.getCreatedAt());
+            event.setUpdatedAt(updated.getUpdatedAt());
+            event.setVersion(updated.getVersion());
         } catch (NoDataFoundException e) {
-            logger.error("No event found with id: {}", id, e);
+            logger.debug("No event found with id: {}", id);
             throw new CustomNoDataFoundException("No event found with id: " + id, e);
         } catch (DataAccessException e) {
-            logger.error("Error inserting event", e);
-            throw new SQLConstraintViolationException("error inserting event", e);
+            if (!isConstraintViolation(e)) {
+                logger.error("Error updating event with id: {}", id, e);
+                throw new RuntimeException("Error updating event with id: " + id, e);
+            }
+            logger.debug("Event with id: {} not updated, it broke a constraint: {}", id, constraintMessage(e));
+            throw new SQLConstraintViolationException("error updating event", e);
+        }
+    }
+
+    /**
+     * Updates only the columns set in {@code patch}, so the UPDATE OF triggers of
+     * the others don't fire, under the same version check as
+     * {@link #updateEvent(DSLContext, int, Event, Integer)}. Returns the event as
+     * it is now.
+     */
+    public Event patchEvent(DSLContext tx, int id, EventPatch patch, Integer expectedVersion)
+            throws CustomNoDataFoundException, VersionConflictException {
+        Map<Field<?>, Object> changes = new LinkedHashMap<>();
+        if (patch.getTitle() != null) {
+            changes.put(EVENTS.TITLE, patch.getTitle());
+        }
+        if (patch.getPrice() != null) {
+            changes.put(EVENTS.PRICE, patch.getPrice());
+        }
+        if (patch.getStatus() != null) {
+            changes.put(EVENTS.STATUS, patch.getStatus());
+        }
+        if (patch.getStartDate() != null) {
+            changes.put(EVENTS.START_DATE, patch.getStartDate());
+        }
+        if (patch.getEndDate() != null) {
+            changes.put(EVENTS.END_DATE, patch.getEndDate());
+        }
+        changes.put(EVENTS.UPDATED_AT, DSL.field("strftime('%s', 'now')", Integer.class));
+        changes.put(EVENTS.VERSION, EVENTS.VERSION.plus(DSL.inline(1)));
+
+        try {
+            Event patched = tx.update(EVENTS)
+                    .set(changes)
+                    .where(EVENTS.ID.eq(id)).and(LIVE).and(versionCondition(expectedVersion))
+                    .returning()
+                    .fetchOne(EventRecordMapper.INSTANCE);
+            if (patched == null) {
+                throw missingOrConflict(tx, id, expectedVersion);
+            }
+            return patched;
+        } catch (DataAccessException e) {
+            if (!isConstraintViolation(e)) {
+                logger.error("Error patching event with id: {}", id, e);
+                throw new RuntimeException("Error patching event with id: " + id, e);
+            }
+            logger.debug("Event with id: {} not patched, it broke a constraint: {}", id, constraintMessage(e));
+            throw new SQLConstraintViolationException(constraintMessage(e), e);
+        }
+    }
+
+    private static Condition versionCondition(Integer expectedVersion) {
+        return expectedVersion == null ? DSL.noCondition() : EVENTS.VERSION.eq(expectedVersion);
+    }
+
+    // Tells apart why a conditional UPDATE matched nothing, inside the same transaction
+    private RuntimeException missingOrConflict(DSLContext tx, int id, Integer expectedVersion) {
+        Integer current = expectedVersion == null ? null : tx.select(EVENTS.VERSION)
+                .from(EVENTS)
+                .where(EVENTS.ID.eq(id)).and(LIVE)
+                .fetchOne(EVENTS.VERSION);
+        if (current == null) {
+            return new CustomNoDataFoundException("No event found with id: " + id);
         }
+        return new VersionConflictException(
+                "Event " + id + " is at version " + current + ", not " + expectedVersion, current);
     }
 
     public void deleteEvent(int id) throws CustomNoDataFoundException {
+        deleteEvent(db, id);
+    }
+
+    /**
+     * Same as {@link #deleteEvent(int)}, inside the caller's transaction. Only
+     * marks the row deleted; {@link #purgeDeletedEvents} removes it later.
+     */
+    public void deleteEvent(DSLContext tx, int id) throws CustomNoDataFoundException {
         try {
-            int affectedRows = db.deleteFrom(EVENTS)
-                    .where(EVENTS.ID.eq(id))
+            int affectedRows = tx.update(EVENTS)
+                    .set(EVENTS.DELETED_AT, DSL.field("strftime('%s', 'now')", Integer.class))
+                    .where(EVENTS.ID.eq(id)).and(LIVE)
                     .execute();
             if (affectedRows == 0) {
-                throw new NoDataFoundException("No event found with id: " + id);
+                logger.debug("No event found with id: {}", id);
+                throw new CustomNoDataFoundException("No event found with id: " + id);
             }
-        } catch (NoDataFoundException e) {
-            logger.error("No event found with id: {}", id, e);
-            throw new CustomNoDataFoundException("No event found with id: " + id, e);
         } catch (DataAccessException e) {
             logger.error("Error deleting event with id: {}", id, e);
             throw new RuntimeException("Error deleting event with id:" + id, e);
         }
     }
+
+    /**
+     * Inserts all events in one transaction, one multi-row INSERT per chunk.
+     * Results line up with {@code events}; successful events get their id set.
+     */
+    public List<BatchItemResult> insertEvents(List<Event> events) {
+        return db.transactionResult(configuration -> insertEvents(configuration.dsl(), events));
+    }
+
+    /**
+     * Same as {@link #insertEvents(List)}, inside the caller's transaction.
+     */
+    public List<BatchItemResult> insertEvents(DSLContext tx, List<Event> events) {
+        try {
+            List<BatchItemResult> results = new ArrayList<>(events.size());
+            for (int from = 0; from < events.size(); from += BATCH_CHUNK_SIZE) {
+                insertChunk(tx, events.subList(from, Math.min(from + BATCH_CHUNK_SIZE, events.size())), from, results);
+            }
+            return results;
+        } catch (DataAccessException e) {
+            logger.error("Error inserting events batch", e);
+            throw new RuntimeException("Error inserting events batch", e);
+        }
+    }
+
+    private void insertChunk(DSLContext tx, List<Event> chunk, int offset, List<BatchItemResult> results) {
+        try {
+            InsertValuesStep4<EventsRecord, String, Integer, Integer, Integer> insert = tx.insertInto(EVENTS,
+                    EVENTS.TITLE, EVENTS.PRICE, EVENTS.START_DATE, EVENTS.END_DATE);
+            for (Event event : chunk) {
+                insert = insert.values(event.getTitle(), event.getPrice(), event.getStartDate(), event.getEndDate());
+            }
+
+            insert.execute();
+
+            // jOOQ only gets the last generated key back from SQLite, but AUTOINCREMENT hands
+            // out consecutive ids in VALUES order within one statement
+            int firstId = tx.lastID().intValue() - chunk.size() + 1;
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(firstId + i);
+                results.add(BatchItemResult.success(offset + i, firstId + i));
+            }
+        } catch (DataAccessException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            // A trigger aborted the statement. SQLite only undid that statement, not the
+            // transaction, so replay the chunk row by row to find out which rows fail.
+            for (int i = 0; i < chunk.size(); i++) {
+                Event event = chunk.get(i);
+                try {
+                    int id = tx.insertInto(EVENTS, EVENTS.TITLE, EVENTS.PRICE, EVENTS.START_DATE, EVENTS.END_DATE)
+                            .values(event.getTitle(), event.getPrice(), event.getStartDate(), event.getEndDate())
+                            .returning(EVENTS.ID)
+                            .fetchOne()
+                            .getId();
+                    event.setId(id);
+                    results.add(BatchItemResult.success(offset + i, id));
+                } catch (DataAccessException rowError) {
+                    if (!isConstraintViolation(rowError)) {
+                        throw rowError;
+                    }
+                    results.add(BatchItemResult.error(offset + i, null, constraintMessage(rowError)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates all events (matched by their id) in one transaction through a single
+     * prepared statement. Results line up with {@code events}.
+     */
+    public List<BatchItemResult> updateEvents(List<Event> events) {
+        return db.transactionResult(configuration -> updateEvents(configuration.dsl(), events));
+    }
+
+    /**
+     * Same as {@link #updateEvents(List)}, inside the caller's transaction.
+     */
+    public List<BatchItemResult> updateEvents(DSLContext tx, List<Event> events) {
+        try {
+            List<BatchItemResult> results = new ArrayList<>(events.size());
+            for (int from = 0; from < events.size(); from += BATCH_CHUNK_SIZE) {
+                List<Event> chunk = events.subList(from, Math.min(from + BATCH_CHUNK_SIZE, events.size()));
+                updateChunk(tx, chunk, from, results);
+                readVersions(tx, chunk, results.subList(from, results.size()));
+            }
+            return results;
+        } catch (DataAccessException e) {
+            logger.error("Error updating events batch", e);
+            throw new RuntimeException("Error updating events batch", e);
+        }
+    }
+
+    private void updateChunk(DSLContext tx, List<Event> chunk, int offset, List<BatchItemResult> results) {
+        try {
+            // In a savepoint, so a failing row also undoes the rows the batch applied ahead of it
+            int[] counts = tx.transactionResult(savepoint -> {
+                BatchBindStep batch = savepoint.dsl().batch(updateQuery(savepoint.dsl(), null, null));
+                for (Event event : chunk) {
+                    batch = batch.bind(event.getTitle(), event.getPrice(), event.getStatus(), event.getStartDate(),
+                            event.getEndDate(), event.getId());
+                }
+                return batch.execute();
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(updateResult(offset + i, chunk.get(i).getId(), counts[i]));
+            }
+        } catch (DataAccessException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            // The savepoint rolled the whole chunk back, so each row is applied exactly once here
+            for (int i = 0; i < chunk.size(); i++) {
+                Event event = chunk.get(i);
+                try {
+                    results.add(updateResult(offset + i, event.getId(), updateQuery(tx, event.getId(), event).execute()));
+                } catch (DataAccessException rowError) {
+                    if (!isConstraintViolation(rowError)) {
+                        throw rowError;
+                    }
+                    results.add(BatchItemResult.error(offset + i, event.getId(), constraintMessage(rowError)));
+                }
+            }
+        }
+    }
+
+    // A JDBC batch can't return rows, so read the new versions back in the same transaction
+    private void readVersions(DSLContext tx, List<Event> chunk, List<BatchItemResult> chunkResults) {
+        List<Event> updated = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunkResults.get(i).isSuccess()) {
+                updated.add(chunk.get(i));
+            }
+        }
+
+        Map<Integer, EventsRecord> records = tx.select(EVENTS.ID, EVENTS.UPDATED_AT, EVENTS.VERSION)
+                .from(EVENTS)
+                .where(EVENTS.ID.in(updated.stream().map(Event::getId).toList()))
+                .fetchMap(EVENTS.ID, EventsRecord.class);
+        for (Event event : updated) {
+            EventsRecord record = records.get(event.getId());
+            event.setUpdatedAt(record.getUpdatedAt());
+            event.setVersion(record.getVersion());
+        }
+    }
+
+    private Query updateQuery(DSLContext tx, Integer id, Event event) {
+        return tx.update(EVENTS)
+                .set(EVENTS.TITLE, event == null ? null : event.getTitle())
+                .set(EVENTS.PRICE, event == null ? null : event.getPrice())
+                .set(EVENTS.STATUS, event == null ? null : event.getStatus())
+                .set(EVENTS.START_DATE, event == null ? null : event.getStartDate())
+                .set(EVENTS.END_DATE, event == null ? null : event.getEndDate())
+                .set(EVENTS.UPDATED_AT, DSL.field("strftime('%s', 'now')", Integer.class))
+                // inline so the batch statement keeps exactly the six bind values above
+                .set(EVENTS.VERSION, EVENTS.VERSION.plus(DSL.inline(1)))
+                .where(EVENTS.ID.eq(id)).and(LIVE);
+    }
+
+    private BatchItemResult updateResult(int index, int id, int updatedRows) {
+        return updatedRows == 0
+                ? BatchItemResult.error(index, id, "No event found with id: " + id)
+                : BatchItemResult.success(index, id);
+    }
+
+    /**
+     * Ids and end dates of events not yet completed that end before {@code before},
+     * soonest first, at most {@code limit}. A range scan of idx_events_pending_end_date.
+     */
+    public Map<Integer, Integer> getPendingEnds(int before, int limit) {
+        try {
+            return buildPendingEndsQuery(before, limit).fetchMap(EVENTS.ID, EVENTS.END_DATE);
+        } catch (DataAccessException e) {
+            logger.error("Error fetching pending event end dates before {}", before, e);
+            throw new RuntimeException("Error fetching pending event end dates", e);
+        }
+    }
+
+    Select<Record2<Integer, Integer>> buildPendingEndsQuery(int before, int limit) {
+        return reader.select(EVENTS.ID, EVENTS.END_DATE)
+                .from(EVENTS)
+                .where(pendingCondition())
+                .and(EVENTS.END_DATE.lt(before))
+                .orderBy(EVENTS.END_DATE.asc(), EVENTS.ID.asc())
+                .limit(limit);
+    }
+
+    /**
+     * Moves the given events to completed in one UPDATE, skipping any that are
+     * already completed or whose end date (re-checked here) is after {@code now}.
+     * Returns the events that changed.
+     */
+    public List<Event> completeEvents(DSLContext tx, Collection<Integer> ids, int now) {
+        try {
+            return tx.update(EVENTS)
+                    .set(EVENTS.STATUS, DSL.inline(COMPLETED))
+                    .set(EVENTS.UPDATED_AT, DSL.field("strftime('%s', 'now')", Integer.class))
+                    .set(EVENTS.VERSION, EVENTS.VERSION.plus(DSL.inline(1)))
+                    .where(EVENTS.ID.in(ids))
+                    .and(pendingCondition())
+                    .and(EVENTS.END_DATE.le(now))
+                    .returning()
+                    .fetch(EventRecordMapper.INSTANCE);
+        } catch (DataAccessException e) {
+            logger.error("Error completing {} events", ids.size(), e);
+            throw new RuntimeException("Error completing events", e);
+        }
+    }
+
+    // Inlined so the SQL matches the WHERE clause of idx_events_pending_end_date
+    private static Condition pendingCondition() {
+        return EVENTS.STATUS.ne(DSL.inline(COMPLETED)).and(LIVE);
+    }
+
+    /**
+     * Soft-deletes all ids in one transaction. Results line up with {@code ids}.
+     */
+    public List<BatchItemResult> deleteEvents(List<Integer> ids) {
+        return db.transactionResult(configuration -> deleteEvents(configuration.dsl(), ids));
+    }
+
+    /**
+     * Same as {@link #deleteEvents(List)}, inside the caller's transaction.
+     */
+    public List<BatchItemResult> deleteEvents(DSLContext tx, List<Integer> ids) {
+        try {
+            Set<Integer> deleted = new HashSet<>();
+            for (int from = 0; from < ids.size(); from += BATCH_CHUNK_SIZE) {
+                deleted.addAll(tx.update(EVENTS)
+                        .set(EVENTS.DELETED_AT, DSL.field("strftime('%s', 'now')", Integer.class))
+                        .where(EVENTS.ID.in(ids.subList(from, Math.min(from + BATCH_CHUNK_SIZE, ids.size()))))
+                        .and(LIVE)
+                        .returning(EVENTS.ID)
+                        .fetch(EVENTS.ID));
+            }
+
+            List<BatchItemResult> results = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                results.add(deleted.remove(id)
+                        ? BatchItemResult.success(i, id)
+                        : BatchItemResult.error(i, id, "No event found with id: " + id));
+            }
+            return results;
+        } catch (DataAccessException e) {
+            logger.error("Error deleting events batch", e);
+            throw new RuntimeException("Error deleting events batch", e);
+        }
+    }
+
+    /**
+     * Hard-deletes up to {@code limit} tombstones soft-deleted at or before
+     * {@code deletedUntil}, oldest first, walking idx_events_deleted_at. Returns
+     * how many were purged.
+     */
+    public int purgeDeletedEvents(DSLContext tx, int deletedUntil, int limit) {
+        try {
+            return tx.deleteFrom(EVENTS)
+                    .where(EVENTS.ID.in(DSL.select(EVENTS.ID)
+                            .from(EVENTS)
+                            .where(EVENTS.DELETED_AT.isNotNull())
+                            .and(EVENTS.DELETED_AT.le(deletedUntil))
+                            .orderBy(EVENTS.DELETED_AT.asc())
+                            .limit(limit)))
+                    .execute();
+        } catch (DataAccessException e) {
+            logger.error("Error purging events deleted until {}", deletedUntil, e);
+            throw new RuntimeException("Error purging deleted events", e);
+        }
+    }
+
+    /**
+     * Message of the underlying SQLite error, e.g. the RAISE text of a validation trigger.
+     */
+    private static String constraintMessage(DataAccessException e) {
+        SQLiteException cause = e.getCause(SQLiteException.class);
+        return cause != null ? cause.getMessage() : e.getMessage();
+    }
+
+    /**
+     * Whether the client's data caused the error (a constraint or validation
+     * trigger), rather than the database (busy, I/O, ...). The low byte of an
+     * extended result code is its primary code.
+     */
+    private static boolean isConstraintViolation(DataAccessException e) {
+        SQLiteException cause = e.getCause(SQLiteException.class);
+        return cause != null && (cause.getResultCode().code & 0xFF) == SQLiteErrorCode.SQLITE_CONSTRAINT.code;
+    }
 }
@@ -0,0 +1,85 @@
+package so.akira.events.repositories;
+
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import so.akira.events.config.DataSourceConfig;
+import so.akira.events.idempotency.IdempotentResponse;
+import so.akira.events.logging.RateLimitedLogger;
+
+import static so.akira.events.db.tables.IdempotencyKeys.IDEMPOTENCY_KEYS;
+
+/**
+ * Persistent tier of the idempotency store, see V10__idempotency_keys.sql.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    private static final RateLimitedLogger logger = RateLimitedLogger.getLogger(IdempotencyKeyRepository.class);
+
+    private final DSLContext reader;
+
+    public IdempotencyKeyRepository(@Qualifier(DataSourceConfig.READER) DSLContext reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Response stored under {@code key} at or after {@code createdSince}, or null.
+     */
+    public IdempotentResponse findResponse(String key, int createdSince) {
+        try {
+            return reader.select(IDEMPOTENCY_KEYS.FINGERPRINT, IDEMPOTENCY_KEYS.STATUS, IDEMPOTENCY_KEYS.BODY)
+                    .from(IDEMPOTENCY_KEYS)
+                    .where(IDEMPOTENCY_KEYS.KEY.eq(key))
+                    .and(IDEMPOTENCY_KEYS.CREATED_AT.ge(createdSince))
+                    .fetchOne(record -> new IdempotentResponse(record.value1(), record.value2(), record.value3()));
+        } catch (DataAccessException e) {
+            logger.error("Error fetching idempotency key {}", key, e);
+            throw new RuntimeException("Error fetching idempotency key", e);
+        }
+    }
+
+    /**
+     * Stores the response inside the caller's write transaction. An expired row
+     * left under the same key is replaced.
+     */
+    public void saveResponse(DSLContext tx, String key, IdempotentResponse response) {
+        try {
+            tx.insertInto(IDEMPOTENCY_KEYS,
+                    IDEMPOTENCY_KEYS.KEY, IDEMPOTENCY_KEYS.FINGERPRINT, IDEMPOTENCY_KEYS.STATUS, IDEMPOTENCY_KEYS.BODY)
+                    .values(key, response.getFingerprint(), response.getStatus(), response.getBody())
+                    .onConflict(IDEMPOTENCY_KEYS.KEY)
+                    .doUpdate()
+                    .set(IDEMPOTENCY_KEYS.FINGERPRINT, response.getFingerprint())
+                    .set(IDEMPOTENCY_KEYS.STATUS, response.getStatus())
+                    .set(IDEMPOTENCY_KEYS.BODY, response.getBody())
+                    .set(IDEMPOTENCY_KEYS.CREATED_AT, DSL.field("strftime('%s', 'now')", Integer.class))
+                    .execute();
+        } catch (DataAccessException e) {
+            logger.error("Error saving idempotency key {}", key, e);
+            throw new RuntimeException("Error saving idempotency key", e);
+        }
+    }
+
+    /**
+     * Deletes up to {@code limit} keys created before {@code createdBefore},
+     * oldest first. Returns how many were deleted.
+     */
+    public int purgeExpired(DSLContext tx, int createdBefore, int limit) {
+        try {
+            return tx.deleteFrom(IDEMPOTENCY_KEYS)
+                    .where(IDEMPOTENCY_KEYS.KEY.in(DSL.select(IDEMPOTENCY_KEYS.KEY)
+                            .from(IDEMPOTENCY_KEYS)
+                            .where(IDEMPOTENCY_KEYS.CREATED_AT.lt(createdBefore))
+                            .orderBy(IDEMPOTENCY_KEYS.CREATED_AT.asc())
+                            .limit(limit)))
+                    .execute();
+        } catch (DataAccessException e) {
+            logger.error("Error purging idempotency keys created before {}", createdBefore, e);
+            throw new RuntimeException("Error purging idempotency keys", e);
+        }
+    }
+}
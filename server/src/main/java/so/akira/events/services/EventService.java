@@ -1,57 +1,212 @@
 package so.akira.events.services;
 
-import java.sql.SQLIntegrityConstraintViolationException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import so.akira.events.backup.BackupScheduler;
+import so.akira.events.cache.EventCache;
+import so.akira.events.compaction.EventCompactor;
 import so.akira.events.exceptions.CustomNoDataFoundException;
 import so.akira.events.exceptions.SQLConstraintViolationException;
+import so.akira.events.exceptions.VersionConflictException;
+import so.akira.events.export.EventSink;
+import so.akira.events.feed.EventChangeFeed;
+import so.akira.events.idempotency.IdempotencyStore;
+import so.akira.events.idempotency.IdempotentResponse;
+import so.akira.events.lifecycle.EventLifecycleScheduler;
+import so.akira.events.logging.RateLimitedLogger;
+import so.akira.events.models.BatchItemResult;
+import so.akira.events.models.DailyTotal;
 import so.akira.events.models.Event;
+import so.akira.events.models.EventChange;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventPatch;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.models.EventStats;
+import so.akira.events.models.TableVersion;
+import so.akira.events.models.TitleSearchPage;
 import so.akira.events.repositories.EventRepository;
+import so.akira.events.snapshot.EventSnapshot;
+import so.akira.events.writer.EventWriter;
 
 @Service
 public class EventService {
 
-    private static final Logger logger = LoggerFactory.getLogger(EventService.class);
+    private static final RateLimitedLogger logger = RateLimitedLogger.getLogger(EventService.class);
+    private static final String CREATE_EVENT = "POST /api/v1/events/new";
 
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private EventWriter eventWriter;
+
+    @Autowired
+    private EventChangeFeed eventChangeFeed;
+
+    @Autowired
+    private EventLifecycleScheduler eventLifecycle;
+
+    @Autowired
+    private EventCompactor eventCompactor;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private EventSnapshot eventSnapshot;
+
+    @Autowired
+    private BackupScheduler backupScheduler;
+
     public Event getEventById(int id) throws CustomNoDataFoundException {
+        return findEventById(id).orElseThrow(() -> new CustomNoDataFoundException("No event found with id: " + id));
+    }
+
+    public Optional<Event> findEventById(int id) {
         try {
             logger.debug("Fetching event with id: {}", id);
-            return eventRepository.getEventById(id);
-        } catch (CustomNoDataFoundException e) {
-            logger.error("No event found with id: {}", id, e);
-            throw e;
+            return eventCache.find(id, eventRepository::findEventById);
         } catch (Exception e) {
             logger.error("An error occured while fetching an event with id: {}", id, e);
             throw new RuntimeException("An error occured while fetching an event", e);
         }
     }
 
-    public Iterable<Event> getEvents() throws CustomNoDataFoundException {
+    public Iterable<Event> getEvents() {
         try {
             logger.debug("Fetching events");
             return eventRepository.getEvents();
-        } catch (CustomNoDataFoundException e) {
-            logger.error("No events found", e);
-            throw e;
         } catch (Exception e) {
             logger.error("An error occured while fetching events", e);
             throw new RuntimeException("An error occured while fetching events", e);
         }
     }
 
-    public void insertEvent(Event event) {
+    public EventPage getEvents(EventCursor cursor, int limit) {
         try {
+            logger.debug("Fetching events page after cursor: {}, limit: {}", cursor, limit);
+            return eventSnapshot.getEvents(cursor, limit)
+                    .orElseGet(() -> eventRepository.getEvents(cursor, limit));
+        } catch (Exception e) {
+            logger.error("An error occured while fetching events", e);
+            throw new RuntimeException("An error occured while fetching events", e);
+        }
+    }
+
+    public EventPage searchEvents(EventSearchCriteria criteria, EventCursor cursor, int limit) {
+        try {
+            logger.debug("Searching events with criteria: {}, cursor: {}, limit: {}", criteria, cursor, limit);
+            return eventSnapshot.searchEvents(criteria, cursor, limit)
+                    .orElseGet(() -> eventRepository.searchEvents(criteria, cursor, limit));
+        } catch (Exception e) {
+            logger.error("An error occured while searching events", e);
+            throw new RuntimeException("An error occured while searching events", e);
+        }
+    }
+
+    public EventPage getEventsOverlapping(int from, int to, EventCursor cursor, int limit) {
+        try {
+            logger.debug("Fetching events overlapping {} to {}, cursor: {}, limit: {}", from, to, cursor, limit);
+            return eventSnapshot.getEventsOverlapping(from, to, cursor, limit)
+                    .orElseGet(() -> eventRepository.getEventsOverlapping(from, to, cursor, limit));
+        } catch (Exception e) {
+            logger.error("An error occured while fetching overlapping events", e);
+            throw new RuntimeException("An error occured while fetching overlapping events", e);
+        }
+    }
+
+    public EventStats getStats() {
+        return new EventStats(eventRepository.getStatusTotals());
+    }
+
+    public List<DailyTotal> getDailyTotals(LocalDate from, LocalDate to, int limit) {
+        logger.debug("Fetching daily totals from {} to {}, limit: {}", from, to, limit);
+        return eventRepository.getDailyTotals(from, to, limit);
+    }
+
+    public TableVersion getEventsVersion() {
+        return eventRepository.getEventsVersion();
+    }
+
+    /**
+     * Streams the whole table to {@code sink}. IOExceptions (usually the client
+     * going away mid-export) propagate as they are.
+     */
+    public long exportEvents(EventSink sink) throws IOException {
+        logger.debug("Exporting events");
+        long count = eventRepository.exportEvents(sink);
+        logger.info("Exported {} events", count);
+        return count;
+    }
+
+    public TitleSearchPage searchTitles(String text, int offset, int limit) {
+        try {
+            logger.debug("Searching event titles for: {}, offset: {}, limit: {}", text, offset, limit);
+            return eventRepository.searchTitles(text, offset, limit);
+        } catch (Exception e) {
+            logger.error("An error occured while searching event titles", e);
+            throw new RuntimeException("An error occured while searching event titles", e);
+        }
+    }
+
+    public void insertEvent(Event event) {
+        insertEvent(event, tx -> null);
+    }
+
+    /**
+     * Inserts the event once per idempotency key. A retry with the same key and
+     * event gets the original response back without another insert.
+     */
+    public IdempotentResponse insertEvent(Event event, String idempotencyKey) {
+        String fingerprint = idempotencyStore.fingerprint(CREATE_EVENT, event);
+        return idempotencyStore.execute(idempotencyKey, fingerprint, () -> insertEvent(event, tx -> {
+            IdempotentResponse response = idempotencyStore.response(fingerprint, HttpStatus.CREATED.value(), event);
+            idempotencyStore.save(tx, idempotencyKey, response);
+            return response;
+        }));
+    }
+
+    // andThen runs in the insert's savepoint once the event has its id; if it throws, the insert is undone too
+    private <T> T insertEvent(Event event, Function<DSLContext, T> andThen) {
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
             logger.debug("Inserting event: {}", event);
-            eventRepository.insertEvent(event);
-        } catch (SQLIntegrityConstraintViolationException e) {
-            logger.error("An error occured while inserting an event", e);
+            T result = eventWriter.execute(tx -> {
+                eventRepository.insertEvent(tx, event);
+                return andThen.apply(tx);
+            }, committed -> eventChangeFeed.publish(EventChange.INSERT, event.getId(), event));
+            write.changed(event.getId());
+            eventLifecycle.schedule(event.getId(), event.getEndDate());
+            return result;
+        } catch (SQLConstraintViolationException e) {
+            logger.warn("Inserting an event broke a constraint: {}", e.getMessage());
             throw new SQLConstraintViolationException("An error occured while inserting an event", e);
         } catch (Exception e) {
             logger.error("An error occured while inserting an event", e);
@@ -60,14 +215,28 @@ public class EventService {
     }
 
     public void updateEvent(int id, Event event) throws CustomNoDataFoundException {
-        try {
-            logger.debug("Updating event with id: {}", id);
-            eventRepository.updateEvent(id, event);
-        } catch (SQLIntegrityConstraintViolationException e) {
-            logger.error("No event found with id: {}", id);
+        updateEvent(id, event, null);
+    }
+
+    /**
+     * Replaces the event, only if it is still at {@code expectedVersion} when given.
+     */
+    public void updateEvent(int id, Event event, Integer expectedVersion)
+            throws CustomNoDataFoundException, VersionConflictException {
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
+            logger.debug("Updating event with id: {}, expected version: {}", id, expectedVersion);
+            eventWriter.execute(tx -> {
+                eventRepository.updateEvent(tx, id, event, expectedVersion);
+                return null;
+            }, committed -> eventChangeFeed.publish(EventChange.UPDATE, id, event));
+            write.changed(id);
+            eventCache.invalidate(id);
+            scheduleCompletion(event);
+        } catch (SQLConstraintViolationException e) {
+            logger.warn("Updating event with id: {} broke a constraint: {}", id, e.getMessage());
             throw new SQLConstraintViolationException("An error occured while updating an event", e);
-        } catch (CustomNoDataFoundException e) {
-            logger.error("An error occured while updating an event with id: {}", id, e);
+        } catch (CustomNoDataFoundException | VersionConflictException e) {
+            logger.debug("Event with id: {} not updated: {}", id, e.getMessage());
             throw e;
         } catch (Exception e) {
             logger.error("An error occured while updating an event with id: {}", id, e);
@@ -75,15 +244,209 @@ public class EventService {
         }
     }
 
+    /**
+     * Applies the fields set in {@code patch}, only if the event is still at
+     * {@code expectedVersion} when given. Returns the patched event.
+     */
+    public Event patchEvent(int id, EventPatch patch, Integer expectedVersion)
+            throws CustomNoDataFoundException, VersionConflictException {
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
+            logger.debug("Patching event with id: {}, patch: {}, expected version: {}", id, patch, expectedVersion);
+            Event event = eventWriter.execute(tx -> eventRepository.patchEvent(tx, id, patch, expectedVersion),
+                    patched -> eventChangeFeed.publish(EventChange.UPDATE, id, patched));
+            write.changed(id);
+            eventCache.invalidate(id);
+            scheduleCompletion(event);
+            return event;
+        } catch (SQLConstraintViolationException | CustomNoDataFoundException | VersionConflictException e) {
+            logger.debug("Event with id: {} not patched: {}", id, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("An error occured while patching an event with id: {}", id, e);
+            throw new RuntimeException("An error occured while patching an event", e);
+        }
+    }
+
     public void deleteEvent(int id) throws CustomNoDataFoundException {
-        try {
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
             logger.debug("Deleting event with id: {}", id);
-            eventRepository.deleteEvent(id);
+            eventWriter.execute(tx -> {
+                eventRepository.deleteEvent(tx, id);
+                return null;
+            }, committed -> eventChangeFeed.publish(EventChange.DELETE, id, null));
+            write.changed(id);
+            eventCache.invalidate(id);
+            eventLifecycle.unschedule(id);
         } catch (CustomNoDataFoundException e) {
-            logger.error("No event found with id: {}", id);
+            logger.debug("No event found with id: {}", id);
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("An error occured while deleting an event", e);
         }
     }
+
+    public List<BatchItemResult> insertEvents(List<Event> events) {
+        logger.debug("Inserting batch of {} events", events.size());
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
+            List<BatchItemResult> results = writeValidated(events, valid -> eventWriter.execute(
+                    tx -> eventRepository.insertEvents(tx, valid),
+                    written -> publish(EventChange.INSERT, written, valid)));
+            results.stream().filter(BatchItemResult::isSuccess).forEach(result -> {
+                Event event = events.get(result.getIndex());
+                write.changed(result.getId());
+                eventLifecycle.schedule(result.getId(), event.getEndDate());
+            });
+            return results;
+        }
+    }
+
+    public List<BatchItemResult> updateEvents(List<Event> events) {
+        logger.debug("Updating batch of {} events", events.size());
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
+            List<BatchItemResult> results = writeValidated(events, valid -> eventWriter.execute(
+                    tx -> eventRepository.updateEvents(tx, valid),
+                    written -> publish(EventChange.UPDATE, written, valid)));
+            results.stream().filter(BatchItemResult::isSuccess).forEach(result -> {
+                write.changed(result.getId());
+                eventCache.invalidate(result.getId());
+                scheduleCompletion(events.get(result.getIndex()));
+            });
+            return results;
+        }
+    }
+
+    public List<BatchItemResult> deleteEvents(List<Integer> ids) {
+        try (EventSnapshot.Write write = eventSnapshot.beginWrite()) {
+            logger.debug("Deleting batch of {} events", ids.size());
+            List<BatchItemResult> results = eventWriter.execute(tx -> eventRepository.deleteEvents(tx, ids),
+                    written -> publish(EventChange.DELETE, written, null));
+            results.stream().filter(BatchItemResult::isSuccess).forEach(result -> {
+                write.changed(result.getId());
+                eventCache.invalidate(result.getId());
+                eventLifecycle.unschedule(result.getId());
+            });
+            return results;
+        } catch (Exception e) {
+            logger.error("An error occured while deleting a batch of events", e);
+            throw new RuntimeException("An error occured while deleting a batch of events", e);
+        }
+    }
+
+    // Runs as the writer's commit callback, so the feed sees changes in commit order.
+    // Result indexes still point into the list that was written.
+    private void publish(String type, List<BatchItemResult> results, List<Event> events) {
+        results.stream().filter(BatchItemResult::isSuccess).forEach(result -> eventChangeFeed.publish(type,
+                result.getId(), events == null ? null : events.get(result.getIndex())));
+    }
+
+    // A client may move an event back out of completed, or end it by hand
+    private void scheduleCompletion(Event event) {
+        if (EventRepository.COMPLETED.equals(event.getStatus())) {
+            eventLifecycle.unschedule(event.getId());
+        } else {
+            eventLifecycle.schedule(event.getId(), event.getEndDate());
+        }
+    }
+
+    /**
+     * Runs bean validation on every event, hands the valid ones to {@code write} and
+     * merges both outcomes back into request order.
+     */
+    private List<BatchItemResult> writeValidated(List<Event> events,
+            Function<List<Event>, List<BatchItemResult>> write) {
+        List<BatchItemResult> results = new ArrayList<>(Collections.nCopies(events.size(), null));
+        List<Event> valid = new ArrayList<>(events.size());
+        List<Integer> validIndexes = new ArrayList<>(events.size());
+
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            Set<ConstraintViolation<Event>> violations = validator.validate(event);
+            if (violations.isEmpty()) {
+                valid.add(event);
+                validIndexes.add(i);
+                continue;
+            }
+
+            Map<String, String> errors = new HashMap<>();
+            violations.forEach(violation -> {
+                String field = violation.getPropertyPath().toString();
+                errors.put(field.isEmpty() ? "event" : field, violation.getMessage());
+            });
+            results.set(i, BatchItemResult.invalid(i, event.getId() > 0 ? event.getId() : null, errors));
+        }
+
+        try {
+            if (!valid.isEmpty()) {
+                for (BatchItemResult result : write.apply(valid)) {
+                    int index = validIndexes.get(result.getIndex());
+                    result.setIndex(index);
+                    results.set(index, result);
+                }
+            }
+            return results;
+        } catch (Exception e) {
+            logger.error("An error occured while writing a batch of events", e);
+            throw new RuntimeException("An error occured while writing a batch of events", e);
+        }
+    }
+
+    public Map<String, Long> getCacheStats() {
+        CacheStats stats = eventCache.stats();
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("size", eventCache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    /**
+     * Subscribes to committed changes, resuming after {@code lastEventId} when given.
+     * Null when the feed is at its subscriber limit.
+     */
+    public SseEmitter subscribeToChanges(String lastEventId) {
+        logger.debug("Subscribing to event changes after: {}", lastEventId);
+        return eventChangeFeed.subscribe(lastEventId);
+    }
+
+    public Map<String, Long> getWriterStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("queueDepth", (long) eventWriter.getQueueDepth());
+        result.put("commits", eventWriter.getCommits());
+        result.put("writes", eventWriter.getWrites());
+        result.put("lastCommitSize", eventWriter.getLastCommitSize());
+        result.put("maxCommitSize", eventWriter.getMaxCommitSize());
+        return result;
+    }
+
+    public Map<String, Long> getSnapshotStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("enabled", eventSnapshot.isEnabled() ? 1L : 0L);
+        result.put("size", (long) eventSnapshot.getSize());
+        result.put("titles", (long) eventSnapshot.getTitles());
+        result.put("served", eventSnapshot.getServed());
+        result.put("fallbacks", eventSnapshot.getFallbacks());
+        result.put("reloads", eventSnapshot.getReloads());
+        return result;
+    }
+
+    public Map<String, Long> getBackupStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("backups", backupScheduler.getBackups());
+        result.put("failures", backupScheduler.getFailures());
+        result.put("lastBackupAt", backupScheduler.getLastBackupAt());
+        result.put("lastBackupBytes", backupScheduler.getLastBackupBytes());
+        result.put("lastBackupMs", backupScheduler.getLastBackupMs());
+        return result;
+    }
+
+    public Map<String, Long> getCompactionStats() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("passes", eventCompactor.getPasses());
+        result.put("purged", eventCompactor.getPurged());
+        result.put("reclaimedPages", eventCompactor.getReclaimedPages());
+        result.put("lastReclaimedPages", eventCompactor.getLastReclaimedPages());
+        return result;
+    }
 }
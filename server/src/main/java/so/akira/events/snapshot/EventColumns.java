@@ -0,0 +1,291 @@
+package so.akira.events.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.models.EventSort;
+
+/**
+ * Live events held column-wise in primitive arrays: one int array per integer
+ * column, the status as a byte code and the title as an index into a
+ * dictionary of distinct titles. About 40 bytes per event plus the distinct
+ * titles, against a few hundred for an {@link Event} with its strings.
+ *
+ * Rows are kept dense (a removal moves the last row into the hole), so a
+ * query is one pass over the arrays that keeps the best {@code limit + 1}
+ * (sort key, id) pairs in a small heap of packed longs. Only the rows that
+ * end up on the page become {@link Event}s.
+ *
+ * Not thread-safe; {@link EventSnapshot} guards it.
+ */
+class EventColumns {
+
+    static final String[] STATUSES = { "started", "paused", "completed" };
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int ABSENT = -1;
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] prices = new int[INITIAL_CAPACITY];
+    private int[] startDates = new int[INITIAL_CAPACITY];
+    private int[] endDates = new int[INITIAL_CAPACITY];
+    private int[] createdAts = new int[INITIAL_CAPACITY];
+    private int[] updatedAts = new int[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY];
+    private int[] titleCodes = new int[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+
+    // Ids come from AUTOINCREMENT, so a flat array beats a map from id to row
+    private int[] rowsById = newRowsById(INITIAL_CAPACITY);
+
+    // Titles are only ever added; a reload starts a fresh dictionary
+    private final List<String> titles = new ArrayList<>();
+    private final Map<String, Integer> titleCodesByTitle = new HashMap<>();
+
+    int size() {
+        return size;
+    }
+
+    int titleCount() {
+        return titles.size();
+    }
+
+    boolean contains(int id) {
+        return id >= 0 && id < rowsById.length && rowsById[id] != ABSENT;
+    }
+
+    /**
+     * Adds the event, or overwrites the row of the same id.
+     */
+    void put(Event event) {
+        int id = event.getId();
+        int row = contains(id) ? rowsById[id] : append(id);
+
+        prices[row] = event.getPrice();
+        startDates[row] = event.getStartDate();
+        endDates[row] = event.getEndDate();
+        createdAts[row] = event.getCreatedAt();
+        updatedAts[row] = event.getUpdatedAt();
+        versions[row] = event.getVersion();
+        statuses[row] = statusCode(event.getStatus());
+        titleCodes[row] = titleCode(event.getTitle());
+    }
+
+    void remove(int id) {
+        if (!contains(id)) {
+            return;
+        }
+
+        int row = rowsById[id];
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            prices[row] = prices[last];
+            startDates[row] = startDates[last];
+            endDates[row] = endDates[last];
+            createdAts[row] = createdAts[last];
+            updatedAts[row] = updatedAts[last];
+            versions[row] = versions[last];
+            statuses[row] = statuses[last];
+            titleCodes[row] = titleCodes[last];
+            rowsById[ids[row]] = row;
+        }
+        rowsById[id] = ABSENT;
+    }
+
+    /**
+     * Same filters, ordering and cursor semantics as
+     * EventRepository#searchEvents.
+     */
+    EventPage search(EventSearchCriteria criteria, EventCursor cursor, int limit) {
+        int status = criteria.getStatus() == null ? ABSENT : statusCode(criteria.getStatus());
+        if (criteria.getStatus() != null && status == ABSENT) {
+            return new EventPage(List.of(), null);
+        }
+
+        int minPrice = criteria.getMinPrice() == null ? Integer.MIN_VALUE : criteria.getMinPrice();
+        int maxPrice = criteria.getMaxPrice() == null ? Integer.MAX_VALUE : criteria.getMaxPrice();
+        int from = criteria.getFrom() == null ? Integer.MIN_VALUE : criteria.getFrom();
+        int to = criteria.getTo() == null ? Integer.MAX_VALUE : criteria.getTo();
+
+        EventSort sort = criteria.getSortField();
+        boolean descending = criteria.isDescending();
+        int[] keys = column(sort);
+        long after = cursor == null ? Long.MIN_VALUE : order(cursor.getKey(), cursor.getId(), descending);
+
+        TopK top = new TopK(limit + 1);
+        for (int row = 0; row < size; row++) {
+            if ((status != ABSENT && statuses[row] != status)
+                    || prices[row] < minPrice || prices[row] > maxPrice
+                    || startDates[row] < from || endDates[row] > to) {
+                continue;
+            }
+            long order = order(keys[row], ids[row], descending);
+            if (order > after) {
+                top.offer(order);
+            }
+        }
+        return toPage(top, limit, sort, descending);
+    }
+
+    /**
+     * Same as EventRepository#getEventsOverlapping: events whose [start_date,
+     * end_date) overlaps [from, to), by (start_date, id).
+     */
+    EventPage overlapping(int from, int to, EventCursor cursor, int limit) {
+        long after = cursor == null ? Long.MIN_VALUE : order(cursor.getKey(), cursor.getId(), false);
+
+        TopK top = new TopK(limit + 1);
+        for (int row = 0; row < size; row++) {
+            if (startDates[row] >= to || endDates[row] <= from) {
+                continue;
+            }
+            long order = order(startDates[row], ids[row], false);
+            if (order > after) {
+                top.offer(order);
+            }
+        }
+        return toPage(top, limit, EventSort.START_DATE, false);
+    }
+
+    private int[] column(EventSort sort) {
+        return switch (sort) {
+            case START_DATE -> startDates;
+            case END_DATE -> endDates;
+            case PRICE -> prices;
+        };
+    }
+
+    // (key, id) packed so that comparing longs compares the pairs; ids are positive.
+    // Negated for a descending order, so smaller always comes first.
+    private static long order(int key, int id, boolean descending) {
+        long packed = ((long) key << 32) | (id & 0xFFFFFFFFL);
+        return descending ? -packed : packed;
+    }
+
+    private EventPage toPage(TopK top, int limit, EventSort sort, boolean descending) {
+        long[] orders = top.sorted();
+        int count = Math.min(orders.length, limit);
+
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long packed = descending ? -orders[i] : orders[i];
+            events.add(toEvent(rowsById[(int) packed]));
+        }
+
+        String nextCursor = orders.length > limit ? EventCursor.of(events.get(limit - 1), sort).encode() : null;
+        return new EventPage(events, nextCursor);
+    }
+
+    private Event toEvent(int row) {
+        Event event = new Event(ids[row], titles.get(titleCodes[row]), prices[row], STATUSES[statuses[row]],
+                startDates[row], endDates[row], createdAts[row], updatedAts[row]);
+        event.setVersion(versions[row]);
+        return event;
+    }
+
+    private int append(int id) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            startDates = Arrays.copyOf(startDates, capacity);
+            endDates = Arrays.copyOf(endDates, capacity);
+            createdAts = Arrays.copyOf(createdAts, capacity);
+            updatedAts = Arrays.copyOf(updatedAts, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            titleCodes = Arrays.copyOf(titleCodes, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+        if (id >= rowsById.length) {
+            int length = rowsById.length;
+            rowsById = Arrays.copyOf(rowsById, Math.max(id + 1, length * 2));
+            Arrays.fill(rowsById, length, rowsById.length, ABSENT);
+        }
+
+        int row = size++;
+        ids[row] = id;
+        rowsById[id] = row;
+        return row;
+    }
+
+    private int titleCode(String title) {
+        return titleCodesByTitle.computeIfAbsent(title, key -> {
+            titles.add(key);
+            return titles.size() - 1;
+        });
+    }
+
+    private static byte statusCode(String status) {
+        for (byte code = 0; code < STATUSES.length; code++) {
+            if (STATUSES[code].equals(status)) {
+                return code;
+            }
+        }
+        return (byte) ABSENT;
+    }
+
+    private static int[] newRowsById(int length) {
+        int[] rowsById = new int[length];
+        Arrays.fill(rowsById, ABSENT);
+        return rowsById;
+    }
+
+    /**
+     * The k smallest longs offered, in a max-heap so the current worst is at the root.
+     */
+    private static class TopK {
+        private final long[] heap;
+        private int count;
+
+        TopK(int k) {
+            heap = new long[k];
+        }
+
+        void offer(long value) {
+            if (count < heap.length) {
+                int i = count++;
+                while (i > 0 && heap[(i - 1) / 2] < value) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = value;
+            } else if (value < heap[0]) {
+                siftDown(value, count);
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(heap, count);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void siftDown(long value, int length) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= length) {
+                    break;
+                }
+                if (child + 1 < length && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (heap[child] <= value) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+        }
+    }
+}
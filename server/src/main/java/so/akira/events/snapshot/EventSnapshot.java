@@ -0,0 +1,364 @@
+package so.akira.events.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.repositories.EventRepository;
+
+/**
+ * Optional in-memory read model of the live events, in {@link EventColumns},
+ * serving the list, search and overlap queries with scans instead of SQL.
+ *
+ * SQLite stays the source of truth. Writers bracket each write with
+ * {@link #beginWrite()} and report the ids they changed once committed. One
+ * thread re-reads those rows together with the events table version in a
+ * single read transaction and applies them. The snapshot only takes that
+ * version when no write was in flight and nothing more was reported
+ * meanwhile, i.e. when every change up to it is applied.
+ *
+ * A query first looks up the current table version (one primary key read)
+ * and is only answered here when the snapshot is at exactly that version;
+ * otherwise it returns empty and the caller asks SQLite. A version that moves
+ * without any reported change (a write this process didn't make, a restore)
+ * makes the thread reload the whole table, as it does on startup and every
+ * {@code reload-ms} as a safety net.
+ */
+@Component
+public class EventSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSnapshot.class);
+
+    private static final long UNKNOWN = -1;
+    private static final Write UNTRACKED = new Write(null);
+
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final long refreshMs;
+    private final long reloadMs;
+    private final int maxPendingIds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private EventColumns columns = new EventColumns();
+    // Events table version the columns reflect, UNKNOWN while they don't match any
+    private long version = UNKNOWN;
+
+    private final AtomicInteger writesInFlight = new AtomicInteger();
+    private final Queue<Integer> changed = new ConcurrentLinkedQueue<>();
+    private final Semaphore wakeUp = new Semaphore(0);
+    // Only touched by the refresh thread: ids applied but not yet confirmed by a version
+    private final Set<Integer> unconfirmed = new HashSet<>();
+    // Version of the last read, whether the snapshot could take it or not
+    private long lastSeen = UNKNOWN;
+    private long reloadAtMs;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public EventSnapshot(EventRepository eventRepository,
+            @Value("${events.snapshot.enabled:false}") boolean enabled,
+            @Value("${events.snapshot.refresh-ms:1000}") long refreshMs,
+            @Value("${events.snapshot.reload-ms:3600000}") long reloadMs,
+            @Value("${events.snapshot.max-pending-ids:10000}") int maxPendingIds) {
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.refreshMs = refreshMs;
+        this.reloadMs = reloadMs;
+        this.maxPendingIds = maxPendingIds;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "event-snapshot");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts tracking a write. Report what it changed through the returned
+     * {@link Write} after the commit, and close it in any case.
+     */
+    public Write beginWrite() {
+        if (!enabled) {
+            return UNTRACKED;
+        }
+        writesInFlight.incrementAndGet();
+        return new Write(this);
+    }
+
+    public Optional<EventPage> getEvents(EventCursor cursor, int limit) {
+        return query(columns -> columns.search(new EventSearchCriteria(), cursor, limit));
+    }
+
+    public Optional<EventPage> searchEvents(EventSearchCriteria criteria, EventCursor cursor, int limit) {
+        return query(columns -> columns.search(criteria, cursor, limit));
+    }
+
+    public Optional<EventPage> getEventsOverlapping(int from, int to, EventCursor cursor, int limit) {
+        return query(columns -> columns.overlapping(from, to, cursor, limit));
+    }
+
+    private Optional<EventPage> query(Function<EventColumns, EventPage> query) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        long current = eventRepository.getEventsVersion().getVersion();
+        lock.readLock().lock();
+        try {
+            if (version != current) {
+                fallbacks.incrementAndGet();
+                wakeUp.release();
+                return Optional.empty();
+            }
+            served.incrementAndGet();
+            return Optional.of(query.apply(columns));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether queries are answered here right now.
+     */
+    public boolean isCurrent() {
+        if (!enabled) {
+            return false;
+        }
+        long current = eventRepository.getEventsVersion().getVersion();
+        lock.readLock().lock();
+        try {
+            return version == current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTitles() {
+        lock.readLock().lock();
+        try {
+            return columns.titleCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getServed() {
+        return served.get();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    public long getReloads() {
+        return reloads.get();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (System.currentTimeMillis() >= reloadAtMs) {
+                    reload();
+                } else {
+                    refresh();
+                }
+                wakeUp.tryAcquire(refreshMs, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Error refreshing the event snapshot", e);
+                reloadAtMs = 0;
+                try {
+                    Thread.sleep(refreshMs);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void refresh() {
+        for (Integer id; (id = changed.poll()) != null;) {
+            unconfirmed.add(id);
+        }
+
+        if (unconfirmed.isEmpty()) {
+            if (!isQuiet()) {
+                return;
+            }
+            long current = eventRepository.getEventsVersion().getVersion();
+            if (current == version) {
+                return;
+            }
+            if (current == lastSeen) {
+                // The writes in flight at the last read changed nothing after all
+                setVersion(current);
+                return;
+            }
+            logger.info("Events table changed behind the snapshot's back, reloading it");
+            reload();
+            return;
+        }
+        if (unconfirmed.size() > maxPendingIds) {
+            reload();
+            return;
+        }
+
+        List<Event> live = new ArrayList<>(unconfirmed.size());
+        List<Integer> gone = new ArrayList<>();
+        long seen = eventRepository.fetchEvents(unconfirmed, live::add, gone::add);
+        boolean confirmed = isQuiet();
+        lastSeen = seen;
+
+        lock.writeLock().lock();
+        try {
+            live.forEach(columns::put);
+            gone.forEach(columns::remove);
+            version = confirmed ? seen : UNKNOWN;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (confirmed) {
+            unconfirmed.clear();
+        }
+    }
+
+    private void reload() {
+        long startedMs = System.currentTimeMillis();
+        changed.clear();
+        unconfirmed.clear();
+
+        EventColumns loaded = new EventColumns();
+        long seen = eventRepository.scanEvents(loaded::put);
+        boolean confirmed = isQuiet();
+        lastSeen = seen;
+
+        lock.writeLock().lock();
+        try {
+            columns = loaded;
+            version = confirmed ? seen : UNKNOWN;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        reloads.incrementAndGet();
+        reloadAtMs = System.currentTimeMillis() + reloadMs;
+        logger.info("Loaded {} events ({} distinct titles) into the snapshot in {} ms", loaded.size(),
+                loaded.titleCount(), System.currentTimeMillis() - startedMs);
+    }
+
+    private void setVersion(long version) {
+        lock.writeLock().lock();
+        try {
+            this.version = version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A write that committed before the last read either was reported before
+    // it (and is applied), or is still in flight or queued. Checking in this
+    // order can't miss one that moves from the first to the second in between.
+    private boolean isQuiet() {
+        return writesInFlight.get() == 0 && changed.isEmpty();
+    }
+
+    private void changed(int id) {
+        changed.add(id);
+    }
+
+    private void finished() {
+        writesInFlight.decrementAndGet();
+        wakeUp.release();
+    }
+
+    /**
+     * One tracked write.
+     */
+    public static class Write implements AutoCloseable {
+        private final EventSnapshot snapshot;
+        private boolean closed;
+
+        private Write(EventSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Reports an event the write inserted, updated or deleted. Call after the commit.
+         */
+        public void changed(int id) {
+            if (snapshot != null) {
+                snapshot.changed(id);
+            }
+        }
+
+        public void changed(Collection<Integer> ids) {
+            ids.forEach(this::changed);
+        }
+
+        @Override
+        public void close() {
+            if (snapshot != null && !closed) {
+                closed = true;
+                snapshot.finished();
+            }
+        }
+    }
+}
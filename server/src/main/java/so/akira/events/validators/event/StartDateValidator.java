@@ -13,8 +13,9 @@ public class StartDateValidator implements ConstraintValidator<ValidStartDate, I
 
     @Override
     public boolean isValid(Integer value, ConstraintValidatorContext context) {
+        // Left to @NotNull where required; a PATCH may leave the start date out
         if (value == null) {
-            return false;
+            return true;
         }
 
         long startOfDayTimestamp = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
@@ -0,0 +1,239 @@
+package so.akira.events.writer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Funnels event mutations through one writer thread. The thread drains
+ * whatever has queued up (up to {@code max-batch-size}, waiting at most
+ * {@code max-linger-ms} for more) and applies it in a single transaction, so
+ * concurrent requests share one commit instead of fighting over the SQLite
+ * write lock.
+ *
+ * Each write runs in its own savepoint, so one that fails (e.g. a validation
+ * trigger, or an exception after some of its statements ran) is rolled back
+ * on its own and only fails its own caller. If the commit itself fails, every
+ * write of the group fails.
+ *
+ * A write can come with an {@code onCommit} callback. Callbacks run on the
+ * writer thread right after their group commits, in queue order, so whatever
+ * they publish (e.g. the change feed) comes out in commit order.
+ */
+@Component
+public class EventWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventWriter.class);
+
+    private final DSLContext db;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final BlockingQueue<PendingWrite<?>> queue;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong lastCommitSize = new AtomicLong();
+    private final AtomicLong maxCommitSize = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public EventWriter(DSLContext db,
+            @Value("${events.writer.max-batch-size:256}") int maxBatchSize,
+            @Value("${events.writer.max-linger-ms:2}") long maxLingerMs,
+            @Value("${events.writer.queue-capacity:10000}") int queueCapacity) {
+        this.db = db;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "event-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Queues {@code write} and returns a future completed once its group has committed.
+     * Blocks while the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Function<DSLContext, T> write) {
+        return submit(write, result -> {
+        });
+    }
+
+    /**
+     * Same as {@link #submit(Function)}, and hands the result to {@code onCommit}
+     * on the writer thread once the group has committed, before the future
+     * completes. Not called when the write or the commit fails.
+     */
+    public <T> CompletableFuture<T> submit(Function<DSLContext, T> write, Consumer<T> onCommit) {
+        PendingWrite<T> pending = new PendingWrite<>(write, onCommit);
+        if (!running) {
+            pending.future.completeExceptionally(new IllegalStateException("Event writer is not running"));
+            return pending.future;
+        }
+
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Queues {@code write} and waits for its commit. Exceptions thrown by the write
+     * are rethrown as is.
+     */
+    public <T> T execute(Function<DSLContext, T> write) {
+        return execute(write, result -> {
+        });
+    }
+
+    /**
+     * Same as {@link #execute(Function)}, with an {@code onCommit} callback as in
+     * {@link #submit(Function, Consumer)}.
+     */
+    public <T> T execute(Function<DSLContext, T> write, Consumer<T> onCommit) {
+        try {
+            return submit(write, onCommit).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getLastCommitSize() {
+        return lastCommitSize.get();
+    }
+
+    public long getMaxCommitSize() {
+        return maxCommitSize.get();
+    }
+
+    private void run() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    // Take everything already waiting before lingering for stragglers
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        queue.drainTo(batch);
+        batch.forEach(write -> write.future.completeExceptionally(new IllegalStateException("Event writer stopped")));
+    }
+
+    private void commit(List<PendingWrite<?>> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        try {
+            db.transaction(configuration -> {
+                DSLContext tx = configuration.dsl();
+                for (PendingWrite<?> write : batch) {
+                    completions.add(write.apply(tx));
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Error committing a group of {} event writes", batch.size(), e);
+            batch.forEach(write -> write.future.completeExceptionally(e));
+            return;
+        }
+
+        commits.incrementAndGet();
+        writes.addAndGet(batch.size());
+        lastCommitSize.set(batch.size());
+        maxCommitSize.accumulateAndGet(batch.size(), Math::max);
+        completions.forEach(Runnable::run);
+    }
+
+    private static class PendingWrite<T> {
+        private final Function<DSLContext, T> write;
+        private final Consumer<T> onCommit;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        PendingWrite(Function<DSLContext, T> write, Consumer<T> onCommit) {
+            this.write = write;
+            this.onCommit = onCommit;
+        }
+
+        /**
+         * Runs the write in a savepoint and returns how to complete its future,
+         * deferred until the commit.
+         */
+        Runnable apply(DSLContext tx) {
+            try {
+                // jOOQ nests a transaction as a savepoint and rethrows runtime exceptions as they are
+                T result = tx.transactionResult(savepoint -> write.apply(savepoint.dsl()));
+                return () -> {
+                    try {
+                        onCommit.accept(result);
+                    } catch (RuntimeException e) {
+                        // Committed all the same, so the caller still gets its result
+                        logger.error("Error running the commit callback of an event write", e);
+                    }
+                    future.complete(result);
+                };
+            } catch (RuntimeException e) {
+                return () -> future.completeExceptionally(e);
+            }
+        }
+    }
+}
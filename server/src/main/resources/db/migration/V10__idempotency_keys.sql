@@ -0,0 +1,14 @@
+-- Responses to POST /api/v1/events/new sent with an Idempotency-Key header, see
+-- so.akira.events.idempotency.IdempotencyStore. A key is stored in the same
+-- write transaction as the event it created, so a retry finds either both or
+-- neither. Keys older than the store's TTL are purged by the compactor, oldest
+-- first through idx_idempotency_keys_created_at.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key TEXT PRIMARY KEY,
+    fingerprint TEXT NOT NULL,
+    status INTEGER NOT NULL,
+    body TEXT NOT NULL,
+    created_at INTEGER NOT NULL DEFAULT (strftime ('%s', 'now'))
+) WITHOUT ROWID;
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,8 @@
+-- Composite indexes backing GET /api/v1/events/search.
+-- status leads so a status-only filter and status + start_date/price
+-- ranges are served by the same index.
+CREATE INDEX IF NOT EXISTS idx_events_status_start_date ON events (status, start_date);
+
+CREATE INDEX IF NOT EXISTS idx_events_status_price ON events (status, price);
+
+CREATE INDEX IF NOT EXISTS idx_events_price ON events (price);
@@ -0,0 +1,37 @@
+-- Row and table versions backing ETag / Last-Modified on GET /api/v1/events.
+-- events.version is bumped by every UPDATE the repository issues; the
+-- table_versions row is bumped by triggers on any write, so a list can be
+-- revalidated with one primary key lookup instead of re-running its query.
+ALTER TABLE events ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS table_versions (
+    name TEXT PRIMARY KEY,
+    version INTEGER NOT NULL DEFAULT 0,
+    updated_at INTEGER NOT NULL DEFAULT (strftime ('%s', 'now'))
+) WITHOUT ROWID;
+
+INSERT OR IGNORE INTO table_versions (name) VALUES ('events');
+
+DROP TRIGGER IF EXISTS bump_events_version_after_insert;
+
+CREATE TRIGGER bump_events_version_after_insert
+AFTER INSERT ON events FOR EACH ROW
+BEGIN
+    UPDATE table_versions SET version = version + 1, updated_at = strftime ('%s', 'now') WHERE name = 'events';
+END;
+
+DROP TRIGGER IF EXISTS bump_events_version_after_update;
+
+CREATE TRIGGER bump_events_version_after_update
+AFTER UPDATE ON events FOR EACH ROW
+BEGIN
+    UPDATE table_versions SET version = version + 1, updated_at = strftime ('%s', 'now') WHERE name = 'events';
+END;
+
+DROP TRIGGER IF EXISTS bump_events_version_after_delete;
+
+CREATE TRIGGER bump_events_version_after_delete
+AFTER DELETE ON events FOR EACH ROW
+BEGIN
+    UPDATE table_versions SET version = version + 1, updated_at = strftime ('%s', 'now') WHERE name = 'events';
+END;
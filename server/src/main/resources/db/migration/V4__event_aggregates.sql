@@ -0,0 +1,79 @@
+-- Aggregates backing GET /api/v1/events/stats, maintained by triggers so a
+-- stats read touches a handful of rows however large events grows.
+CREATE TABLE IF NOT EXISTS event_status_totals (
+    status TEXT PRIMARY KEY,
+    event_count INTEGER NOT NULL DEFAULT 0,
+    price_total INTEGER NOT NULL DEFAULT 0
+) WITHOUT ROWID;
+
+-- day is the UTC day number of start_date (start_date / 86400)
+CREATE TABLE IF NOT EXISTS event_daily_starts (
+    day INTEGER PRIMARY KEY,
+    event_count INTEGER NOT NULL DEFAULT 0,
+    price_total INTEGER NOT NULL DEFAULT 0
+) WITHOUT ROWID;
+
+INSERT OR IGNORE INTO event_status_totals (status) VALUES ('started'), ('paused'), ('completed');
+
+-- Backfill from the rows that already exist
+UPDATE event_status_totals SET
+    event_count = (SELECT COUNT(*) FROM events WHERE events.status = event_status_totals.status),
+    price_total = (SELECT COALESCE(SUM(price), 0) FROM events WHERE events.status = event_status_totals.status);
+
+INSERT OR REPLACE INTO event_daily_starts (day, event_count, price_total)
+SELECT start_date / 86400, COUNT(*), SUM(price) FROM events GROUP BY start_date / 86400;
+
+DROP TRIGGER IF EXISTS aggregate_events_after_insert;
+
+CREATE TRIGGER aggregate_events_after_insert
+AFTER INSERT ON events FOR EACH ROW
+BEGIN
+    UPDATE event_status_totals
+    SET event_count = event_count + 1, price_total = price_total + NEW.price
+    WHERE status = NEW.status;
+
+    INSERT INTO event_daily_starts (day, event_count, price_total) VALUES (NEW.start_date / 86400, 1, NEW.price)
+    ON CONFLICT (day) DO UPDATE SET event_count = event_count + 1, price_total = price_total + NEW.price;
+END;
+
+DROP TRIGGER IF EXISTS aggregate_events_after_update;
+
+-- Only fires when an aggregated column is part of the UPDATE, and the WHEN
+-- skips updates that set them to what they already were
+CREATE TRIGGER aggregate_events_after_update
+AFTER UPDATE OF status, price, start_date ON events FOR EACH ROW
+WHEN OLD.status IS NOT NEW.status OR OLD.price IS NOT NEW.price OR OLD.start_date IS NOT NEW.start_date
+BEGIN
+    UPDATE event_status_totals
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE status = OLD.status;
+
+    UPDATE event_status_totals
+    SET event_count = event_count + 1, price_total = price_total + NEW.price
+    WHERE status = NEW.status;
+
+    UPDATE event_daily_starts
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE day = OLD.start_date / 86400;
+
+    DELETE FROM event_daily_starts WHERE day = OLD.start_date / 86400 AND event_count = 0;
+
+    INSERT INTO event_daily_starts (day, event_count, price_total) VALUES (NEW.start_date / 86400, 1, NEW.price)
+    ON CONFLICT (day) DO UPDATE SET event_count = event_count + 1, price_total = price_total + NEW.price;
+END;
+
+DROP TRIGGER IF EXISTS aggregate_events_after_delete;
+
+CREATE TRIGGER aggregate_events_after_delete
+AFTER DELETE ON events FOR EACH ROW
+BEGIN
+    UPDATE event_status_totals
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE status = OLD.status;
+
+    UPDATE event_daily_starts
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE day = OLD.start_date / 86400;
+
+    DELETE FROM event_daily_starts WHERE day = OLD.start_date / 86400 AND event_count = 0;
+END;
@@ -0,0 +1,42 @@
+-- Full-text index over events.title backing GET /api/v1/events/search/title.
+-- External content: the index stores only terms and reads titles back from
+-- events, kept in sync by the triggers below. prefix='2 3' adds prefix indexes
+-- so short type-ahead prefixes don't have to walk the whole term list.
+CREATE VIRTUAL TABLE IF NOT EXISTS events_fts USING fts5 (
+    title,
+    content = 'events',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+INSERT INTO events_fts (events_fts) VALUES ('rebuild');
+
+-- Only ever helped exact and prefix matches on title; the FTS index replaces it
+DROP INDEX IF EXISTS idx_events_title;
+
+DROP TRIGGER IF EXISTS index_events_title_after_insert;
+
+CREATE TRIGGER index_events_title_after_insert
+AFTER INSERT ON events FOR EACH ROW
+BEGIN
+    INSERT INTO events_fts (rowid, title) VALUES (NEW.id, NEW.title);
+END;
+
+DROP TRIGGER IF EXISTS index_events_title_after_update;
+
+CREATE TRIGGER index_events_title_after_update
+AFTER UPDATE OF title ON events FOR EACH ROW
+WHEN OLD.title IS NOT NEW.title
+BEGIN
+    INSERT INTO events_fts (events_fts, rowid, title) VALUES ('delete', OLD.id, OLD.title);
+    INSERT INTO events_fts (rowid, title) VALUES (NEW.id, NEW.title);
+END;
+
+DROP TRIGGER IF EXISTS index_events_title_after_delete;
+
+CREATE TRIGGER index_events_title_after_delete
+AFTER DELETE ON events FOR EACH ROW
+BEGIN
+    INSERT INTO events_fts (events_fts, rowid, title) VALUES ('delete', OLD.id, OLD.title);
+END;
@@ -0,0 +1,39 @@
+-- Interval index over (start_date, end_date) backing GET /api/v1/events/overlapping.
+-- Separate B-tree indexes on start_date and end_date can only bound one side of
+-- "start_date < :to AND end_date > :from"; the R*Tree bounds both, so an overlap
+-- lookup descends the tree instead of scanning half the table. rtree_i32 keeps
+-- coordinates as exact 32-bit integers; the default rtree stores float32, which
+-- at current epoch seconds only resolves about two minutes.
+CREATE VIRTUAL TABLE IF NOT EXISTS events_rtree USING rtree_i32 (
+    id,
+    start_date,
+    end_date
+);
+
+INSERT INTO events_rtree (id, start_date, end_date)
+SELECT id, start_date, end_date FROM events;
+
+DROP TRIGGER IF EXISTS index_events_interval_after_insert;
+
+CREATE TRIGGER index_events_interval_after_insert
+AFTER INSERT ON events FOR EACH ROW
+BEGIN
+    INSERT INTO events_rtree (id, start_date, end_date) VALUES (NEW.id, NEW.start_date, NEW.end_date);
+END;
+
+DROP TRIGGER IF EXISTS index_events_interval_after_update;
+
+CREATE TRIGGER index_events_interval_after_update
+AFTER UPDATE OF start_date, end_date ON events FOR EACH ROW
+WHEN OLD.start_date IS NOT NEW.start_date OR OLD.end_date IS NOT NEW.end_date
+BEGIN
+    UPDATE events_rtree SET start_date = NEW.start_date, end_date = NEW.end_date WHERE id = NEW.id;
+END;
+
+DROP TRIGGER IF EXISTS index_events_interval_after_delete;
+
+CREATE TRIGGER index_events_interval_after_delete
+AFTER DELETE ON events FOR EACH ROW
+BEGIN
+    DELETE FROM events_rtree WHERE id = OLD.id;
+END;
@@ -0,0 +1,6 @@
+-- Partial index over the end dates of events that haven't completed yet, read by
+-- EventLifecycleScheduler to (re)build its schedule. Completed events make up most
+-- of the table over time and are never scheduled, so leaving them out keeps the
+-- lookup proportional to what is still pending. Queries must spell the predicate
+-- as the literal status <> 'completed' for SQLite to pick this index.
+CREATE INDEX IF NOT EXISTS idx_events_pending_end_date ON events (end_date) WHERE status <> 'completed';
@@ -0,0 +1,97 @@
+-- Soft delete. Deleting an event only sets deleted_at; the row stays behind as a
+-- tombstone until so.akira.events.compaction.EventCompactor purges it in small
+-- batches when the server is quiet. Readers never see tombstones: every read
+-- filters on deleted_at IS NULL, and the indexes below are partial on that same
+-- predicate, so tombstones don't take up room in them either.
+ALTER TABLE events ADD COLUMN deleted_at INTEGER DEFAULT NULL;
+
+DROP INDEX IF EXISTS idx_events_start_date;
+CREATE INDEX idx_events_start_date ON events (start_date) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_events_end_date;
+CREATE INDEX idx_events_end_date ON events (end_date) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_events_status_start_date;
+CREATE INDEX idx_events_status_start_date ON events (status, start_date) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_events_status_price;
+CREATE INDEX idx_events_status_price ON events (status, price) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_events_price;
+CREATE INDEX idx_events_price ON events (price) WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_events_pending_end_date;
+CREATE INDEX idx_events_pending_end_date ON events (end_date) WHERE status <> 'completed' AND deleted_at IS NULL;
+
+-- The other way round for the compactor: only tombstones, oldest first
+CREATE INDEX IF NOT EXISTS idx_events_deleted_at ON events (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- A soft delete takes the event out of the aggregates and the FTS and R*Tree
+-- indexes, exactly like the hard DELETE triggers used to
+DROP TRIGGER IF EXISTS unindex_events_after_soft_delete;
+
+CREATE TRIGGER unindex_events_after_soft_delete
+AFTER UPDATE OF deleted_at ON events FOR EACH ROW
+WHEN OLD.deleted_at IS NULL AND NEW.deleted_at IS NOT NULL
+BEGIN
+    UPDATE event_status_totals
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE status = OLD.status;
+
+    UPDATE event_daily_starts
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE day = OLD.start_date / 86400;
+
+    DELETE FROM event_daily_starts WHERE day = OLD.start_date / 86400 AND event_count = 0;
+
+    INSERT INTO events_fts (events_fts, rowid, title) VALUES ('delete', OLD.id, OLD.title);
+
+    DELETE FROM events_rtree WHERE id = OLD.id;
+END;
+
+-- Purging a tombstone must not undo any of that a second time (an FTS5 'delete'
+-- of a row that isn't indexed corrupts the index), nor bump the table version
+-- readers revalidate against, since nothing they can see has changed
+DROP TRIGGER IF EXISTS aggregate_events_after_delete;
+
+CREATE TRIGGER aggregate_events_after_delete
+AFTER DELETE ON events FOR EACH ROW
+WHEN OLD.deleted_at IS NULL
+BEGIN
+    UPDATE event_status_totals
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE status = OLD.status;
+
+    UPDATE event_daily_starts
+    SET event_count = event_count - 1, price_total = price_total - OLD.price
+    WHERE day = OLD.start_date / 86400;
+
+    DELETE FROM event_daily_starts WHERE day = OLD.start_date / 86400 AND event_count = 0;
+END;
+
+DROP TRIGGER IF EXISTS index_events_title_after_delete;
+
+CREATE TRIGGER index_events_title_after_delete
+AFTER DELETE ON events FOR EACH ROW
+WHEN OLD.deleted_at IS NULL
+BEGIN
+    INSERT INTO events_fts (events_fts, rowid, title) VALUES ('delete', OLD.id, OLD.title);
+END;
+
+DROP TRIGGER IF EXISTS index_events_interval_after_delete;
+
+CREATE TRIGGER index_events_interval_after_delete
+AFTER DELETE ON events FOR EACH ROW
+WHEN OLD.deleted_at IS NULL
+BEGIN
+    DELETE FROM events_rtree WHERE id = OLD.id;
+END;
+
+DROP TRIGGER IF EXISTS bump_events_version_after_delete;
+
+CREATE TRIGGER bump_events_version_after_delete
+AFTER DELETE ON events FOR EACH ROW
+WHEN OLD.deleted_at IS NULL
+BEGIN
+    UPDATE table_versions SET version = version + 1, updated_at = strftime ('%s', 'now') WHERE name = 'events';
+END;
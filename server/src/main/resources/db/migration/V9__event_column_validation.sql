@@ -0,0 +1,59 @@
+-- Splits validate_events_before_update into one trigger per column group. Each
+-- only fires when its columns are in the UPDATE's SET list, and the WHEN skips
+-- values that didn't change (they were valid when written), so a PATCH of one
+-- column, a soft delete or a status transition no longer re-checks the whole row.
+DROP TRIGGER IF EXISTS validate_events_before_update;
+
+DROP TRIGGER IF EXISTS validate_events_title_before_update;
+
+CREATE TRIGGER validate_events_title_before_update
+BEFORE UPDATE OF title ON events FOR EACH ROW
+WHEN OLD.title IS NOT NEW.title
+BEGIN
+    SELECT CASE
+        WHEN NEW.title IS NULL OR LENGTH(NEW.title) < 3 OR LENGTH(NEW.title) > 255
+        THEN RAISE(ABORT, 'error: events.title column length should be between 3 and 255 characters')
+    END;
+END;
+
+DROP TRIGGER IF EXISTS validate_events_price_before_update;
+
+CREATE TRIGGER validate_events_price_before_update
+BEFORE UPDATE OF price ON events FOR EACH ROW
+WHEN OLD.price IS NOT NEW.price
+BEGIN
+    SELECT CASE
+        WHEN NEW.price < 0
+        THEN RAISE(ABORT, 'error: events.price must be a positive integer')
+    END;
+END;
+
+DROP TRIGGER IF EXISTS validate_events_status_before_update;
+
+CREATE TRIGGER validate_events_status_before_update
+BEFORE UPDATE OF status ON events FOR EACH ROW
+WHEN OLD.status IS NOT NEW.status
+BEGIN
+    SELECT CASE
+        WHEN NEW.status IS NULL OR NEW.status NOT IN ('started', 'completed', 'paused')
+        THEN RAISE(ABORT, 'error: events.status must be one of the following: started | completed | paused')
+    END;
+END;
+
+DROP TRIGGER IF EXISTS validate_events_dates_before_update;
+
+CREATE TRIGGER validate_events_dates_before_update
+BEFORE UPDATE OF start_date, end_date ON events FOR EACH ROW
+WHEN OLD.start_date IS NOT NEW.start_date OR OLD.end_date IS NOT NEW.end_date
+BEGIN
+    SELECT CASE
+        WHEN NEW.start_date < 0
+        THEN RAISE(ABORT, 'error: events.start_date must be a positive integer')
+
+        WHEN NEW.end_date < 0
+        THEN RAISE(ABORT, 'error: events.end_date must be a positive integer')
+
+        WHEN NEW.start_date >= NEW.end_date
+        THEN RAISE(ABORT, 'error: events.start_date should be less than events.end_date')
+    END;
+END;
@@ -0,0 +1,126 @@
+package so.akira.events.admission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionInterceptorTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public static class Handlers {
+        public ResponseEntity<?> get() {
+            return ResponseEntity.ok().build();
+        }
+
+        public ResponseEntity<SseEmitter> stream() {
+            return ResponseEntity.ok().build();
+        }
+    }
+
+    private static AdmissionInterceptor interceptor(double clientRate, double clientBurst, int readLimit,
+            int writeLimit) {
+        return new AdmissionInterceptor(new ObjectMapper(), true, clientRate, clientBurst, 1000,
+                readLimit, 1, 100, 50, writeLimit, 1, 100, 200, 0.5);
+    }
+
+    private static HandlerMethod handler(String name) throws Exception {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    private static MockHttpServletRequest request(String method, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/events");
+        request.setRemoteAddr(client);
+        return request;
+    }
+
+    @Test
+    public void testClientOverItsBucketGetsTooManyRequests() throws Exception {
+        AdmissionInterceptor admission = interceptor(1, 3, 100, 100);
+        HandlerMethod get = handler("get");
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = request("GET", "10.0.0.1");
+            assertTrue(admission.preHandle(request, new MockHttpServletResponse(), get), "A burst should be let through");
+            admission.afterCompletion(request, new MockHttpServletResponse(), get, null);
+        }
+
+        MockHttpServletResponse throttled = new MockHttpServletResponse();
+        assertFalse(admission.preHandle(request("GET", "10.0.0.1"), throttled, get));
+        assertEquals(429, throttled.getStatus());
+        assertEquals("1", throttled.getHeader(HttpHeaders.RETRY_AFTER), "The client can retry once a token is back");
+        assertTrue(throttled.getContentAsString().contains("Too many requests"));
+
+        assertTrue(admission.preHandle(request("GET", "10.0.0.2"), new MockHttpServletResponse(), get),
+                "Other clients have their own bucket");
+        assertEquals(1, admission.getThrottled());
+    }
+
+    @Test
+    public void testReadsAndWritesAreLimitedSeparately() throws Exception {
+        AdmissionInterceptor admission = interceptor(1000, 1000, 2, 1);
+        HandlerMethod get = handler("get");
+
+        MockHttpServletRequest write = request("POST", "10.0.0.1");
+        assertTrue(admission.preHandle(write, new MockHttpServletResponse(), get));
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        assertFalse(admission.preHandle(request("PUT", "10.0.0.1"), shed, get), "The write limit should be full");
+        assertEquals(503, shed.getStatus());
+        assertNotNull(shed.getHeader(HttpHeaders.RETRY_AFTER));
+
+        assertTrue(admission.preHandle(request("GET", "10.0.0.1"), new MockHttpServletResponse(), get),
+                "A full write limit should not hold up reads");
+        assertTrue(admission.preHandle(request("GET", "10.0.0.1"), new MockHttpServletResponse(), get));
+        assertFalse(admission.preHandle(request("GET", "10.0.0.1"), new MockHttpServletResponse(), get));
+        assertTrue(admission.preHandle(request("GET", "10.0.0.1"), new MockHttpServletResponse(), handler("stream")),
+                "Streams should only go through the token bucket");
+
+        admission.afterCompletion(write, new MockHttpServletResponse(), get, null);
+        assertEquals(0, admission.getWritesInFlight(), "A completed request should free its slot");
+        assertTrue(admission.preHandle(request("PUT", "10.0.0.1"), new MockHttpServletResponse(), get));
+        assertEquals(2, admission.getShed());
+    }
+
+    @Test
+    public void testLimitAdaptsToLatency() {
+        AimdLimit limit = new AimdLimit(10, 2, 20, 50 * MS, 0.5);
+        long now = System.nanoTime();
+
+        // Fast requests with the limit in use grow it
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < limit.getLimit(); j++) {
+                assertTrue(limit.tryAcquire());
+            }
+            for (int j = limit.getInFlight(); j > 0; j--) {
+                limit.release(MS, now);
+            }
+        }
+        assertEquals(20, limit.getLimit(), "Fast requests should grow the limit up to its max");
+
+        // A burst of slow requests halves it once
+        now += 100 * MS;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < 5; i++) {
+            limit.release(100 * MS, now);
+        }
+        assertEquals(10, limit.getLimit(), "Slow requests within one target latency should back off once");
+
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(100 * MS, now + i * 100 * MS);
+        }
+        assertEquals(2, limit.getLimit(), "The limit should not drop below its min");
+    }
+}
@@ -0,0 +1,160 @@
+package so.akira.events.backup;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import so.akira.events.models.BatchItemResult;
+import so.akira.events.models.Event;
+import so.akira.events.services.EventService;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static so.akira.events.db.tables.Events.EVENTS;
+
+@SpringBootTest(properties = "events.backup.retain=3")
+@ActiveProfiles("test")
+public class BackupSchedulerTest {
+
+    @TempDir
+    static Path backups;
+
+    @TempDir
+    Path restores;
+
+    @DynamicPropertySource
+    static void backupDirectory(DynamicPropertyRegistry registry) {
+        registry.add("events.backup.directory", () -> backups.toString());
+    }
+
+    @Autowired
+    private BackupScheduler backupScheduler;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private DSLContext dslContext;
+
+    private void seed(String title, int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event(title + " " + i + " " + "x".repeat(200), 100, 1900000000, 1900086400));
+        }
+        assertTrue(eventService.insertEvents(events).stream().allMatch(BatchItemResult::isSuccess));
+    }
+
+    private static long countEvents(Path database) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:file:" + database);
+                Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT count(*) FROM events WHERE deleted_at IS NULL")) {
+            return result.getLong(1);
+        }
+    }
+
+    @Test
+    public void testBackupIsAVerifiedCopyOfTheLiveDatabase() throws Exception {
+        seed("Backed Up Event", 500);
+        int live = dslContext.fetchCount(EVENTS, EVENTS.DELETED_AT.isNull());
+
+        BackupFile backup = backupScheduler.backup();
+
+        assertTrue(Files.exists(backup.getPath()), "The backup should be written: " + backup);
+        assertTrue(backupScheduler.getStore().verify(backup), "The backup should match its checksum");
+        assertEquals(backup.getSha256() + "  " + backup.getPath().getFileName(),
+                Files.readString(Path.of(backup.getPath() + ".sha256")).trim(), "The checksum file should read like sha256sum");
+        assertFalse(Files.exists(Path.of(backup.getPath() + "-wal")), "The backup should be a single file");
+        assertTrue(BackupStore.isHealthy(backup.getPath()));
+        assertEquals(live, countEvents(backup.getPath()), "The backup should hold every live event");
+    }
+
+    @Test
+    public void testWritersKeepGoingDuringABackup() throws Exception {
+        seed("Bulk Event", 3000);
+        int before = dslContext.fetchCount(EVENTS, EVENTS.DELETED_AT.isNull());
+
+        CompletableFuture<BackupFile> backup = CompletableFuture.supplyAsync(() -> {
+            try {
+                return backupScheduler.backup();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        int written = 0;
+        while (!backup.isDone() && written < 200) {
+            eventService.insertEvent(new Event("Concurrent Event " + written, 100, 1900000000, 1900086400));
+            written++;
+        }
+
+        BackupFile result = backup.get(60, TimeUnit.SECONDS);
+        assertTrue(written > 0, "Writes should go through while the backup runs");
+        assertTrue(backupScheduler.getStore().verify(result));
+        long copied = countEvents(result.getPath());
+        assertTrue(copied >= before && copied <= before + written,
+                "The backup should be one consistent version of the database, got " + copied + " events");
+    }
+
+    @Test
+    public void testOnlyTheNewestBackupsAreKept() throws Exception {
+        seed("Rotated Event", 10);
+        List<BackupFile> taken = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            taken.add(backupScheduler.backup());
+            Thread.sleep(2);
+        }
+
+        List<BackupFile> kept = backupScheduler.getStore().list();
+        assertEquals(3, kept.size(), "Only events.backup.retain backups should be kept");
+        assertEquals(taken.get(4).getPath(), kept.get(0).getPath(), "The newest backup should come first");
+        assertFalse(Files.exists(taken.get(0).getPath()), "The oldest backups should be deleted");
+        assertFalse(Files.exists(Path.of(taken.get(0).getPath() + ".sha256")), "Along with their checksums");
+    }
+
+    @Test
+    public void testRestoreSkipsBackupsThatNoLongerVerify() throws Exception {
+        seed("Restored Event", 10);
+        BackupFile older = backupScheduler.backup();
+        Thread.sleep(2);
+        seed("Newer Event", 10);
+        BackupFile newer = backupScheduler.backup();
+
+        // Flip one byte in the middle of the newest backup
+        try (RandomAccessFile file = new RandomAccessFile(newer.getPath().toFile(), "rw")) {
+            file.seek(file.length() / 2);
+            int b = file.read();
+            file.seek(file.length() / 2);
+            file.write(b ^ 0xFF);
+        }
+        assertFalse(backupScheduler.getStore().verify(newer), "A changed backup should fail verification");
+
+        Path database = restores.resolve("app.events-restored.db");
+        assertEquals(older.getPath(), backupScheduler.getStore().restoreIfNeeded(database).orElseThrow().getPath(),
+                "A missing database should come back from the newest backup that verifies");
+        assertTrue(BackupStore.isHealthy(database));
+        assertEquals(countEvents(older.getPath()), countEvents(database));
+
+        assertTrue(backupScheduler.getStore().restoreIfNeeded(database).isEmpty(),
+                "A healthy database should be left alone");
+
+        Files.write(database, "not a database".getBytes());
+        assertFalse(BackupStore.isHealthy(database));
+        assertTrue(backupScheduler.getStore().restoreIfNeeded(database).isPresent(),
+                "A damaged database should be restored too");
+    }
+}
@@ -0,0 +1,74 @@
+package so.akira.events.benchmarks;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.flywaydb.core.Flyway;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.sqlite.SQLiteConfig;
+
+import so.akira.events.config.DataSourceConfig;
+import so.akira.events.models.Event;
+import so.akira.events.repositories.EventRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A migrated, seeded, file-backed database with the production writer/reader
+ * pools, for benchmarks that need real SQLite I/O.
+ */
+class BenchmarkDatabase implements AutoCloseable {
+
+    static final int START_DATE = 1_900_000_000;
+
+    final Path directory;
+    final HikariDataSource writer;
+    final HikariDataSource reader;
+    final DSLContext db;
+    final EventRepository repository;
+    final List<Integer> ids;
+
+    BenchmarkDatabase(String journalMode, int rows) throws IOException {
+        directory = Files.createTempDirectory("events-bench");
+        String url = DataSourceConfig.url(directory.resolve("app.events-bench.db").toString());
+
+        boolean wal = "wal".equals(journalMode);
+        writer = DataSourceConfig.writerPool(url,
+                wal ? SQLiteConfig.JournalMode.WAL : SQLiteConfig.JournalMode.DELETE,
+                wal ? SQLiteConfig.SynchronousMode.NORMAL : SQLiteConfig.SynchronousMode.FULL,
+                5000, 16384, 268435456);
+        Flyway.configure().dataSource(writer).locations("classpath:db/migration").load().migrate();
+        reader = DataSourceConfig.readerPool(url, 4, 5000, 16384, 268435456);
+
+        db = DSL.using(writer, SQLDialect.SQLITE);
+        repository = new EventRepository(db, DSL.using(reader, SQLDialect.SQLITE));
+
+        List<Event> events = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            events.add(newEvent(i));
+        }
+        ids = repository.insertEvents(events).stream().map(result -> result.getId()).toList();
+    }
+
+    static Event newEvent(int i) {
+        Event event = new Event("Benchmark Event " + i, 100 + i % 1000, START_DATE + i, START_DATE + 86400 + i);
+        event.setStatus("started");
+        return event;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+        writer.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package so.akira.events.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import so.akira.events.encoding.ColumnarEventPageConverter;
+import so.akira.events.models.Event;
+import so.akira.events.models.EventPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization cost of a full event page (MAX_PAGE_SIZE events) in each
+ * negotiable encoding, with and without gzip. Time per op is the CPU side;
+ * the body size of each combination is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({ "json", "smile", "cbor", "columnar" })
+    public String encoding;
+
+    @Param({ "none", "gzip" })
+    public String compression;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper smile = new SmileMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+
+    private EventPage page;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(new Event(i + 1, "Benchmark Event " + i, 1000 + i, i % 3 == 0 ? "paused" : "started",
+                    BenchmarkDatabase.START_DATE + i * 3600, BenchmarkDatabase.START_DATE + 86400 + i * 3600,
+                    BenchmarkDatabase.START_DATE, BenchmarkDatabase.START_DATE + i));
+        }
+        page = new EventPage(events, "MTkwMDAwMDAxOToyMA");
+
+        System.out.printf("%n%s/%s: %d bytes per page of %d events%n", encoding, compression, encode().length,
+                events.size());
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try (OutputStream out = "gzip".equals(compression) ? new GZIPOutputStream(bytes) : bytes) {
+            switch (encoding) {
+                case "smile" -> smile.writeValue(out, page);
+                case "cbor" -> cbor.writeValue(out, page);
+                case "columnar" -> {
+                    try (JsonGenerator generator = json.getFactory().createGenerator(out)) {
+                        ColumnarEventPageConverter.write(page, generator);
+                    }
+                }
+                default -> json.writeValue(out, page);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
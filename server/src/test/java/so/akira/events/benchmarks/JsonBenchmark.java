@@ -0,0 +1,71 @@
+package so.akira.events.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.StatusResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response bodies the controller returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Event event;
+    private EventPage page;
+    private StatusResponse statusResponse;
+
+    @Setup
+    public void setUp() {
+        event = new Event(1, "Benchmark Event", 1000, "started", BenchmarkDatabase.START_DATE,
+                BenchmarkDatabase.START_DATE + 86400, BenchmarkDatabase.START_DATE, 0);
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(new Event(i + 1, "Benchmark Event " + i, 1000 + i, "started", BenchmarkDatabase.START_DATE + i,
+                    BenchmarkDatabase.START_DATE + 86400 + i, BenchmarkDatabase.START_DATE, 0));
+        }
+        page = new EventPage(events, "MTkwMDAwMDAxOToyMA");
+
+        statusResponse = new StatusResponse("error", "Event not found", null, new Object[0]);
+    }
+
+    @Benchmark
+    public byte[] event() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] eventPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] statusResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(statusResponse);
+    }
+}
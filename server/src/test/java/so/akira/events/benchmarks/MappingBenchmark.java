@@ -0,0 +1,74 @@
+package so.akira.events.benchmarks;
+
+import org.jooq.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import so.akira.events.db.tables.records.EventsRecord;
+import so.akira.events.models.Event;
+import so.akira.events.repositories.EventRecordMapper;
+
+import static so.akira.events.db.tables.Events.EVENTS;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping EventsRecord into Event: jOOQ's reflective fetchInto(Event.class)
+ * path against EventRecordMapper, on an already fetched page and end to end
+ * through a query. Run with the gc profiler (the benchmark profile's default)
+ * to compare allocation per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private BenchmarkDatabase database;
+    private Result<EventsRecord> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = new BenchmarkDatabase("wal", 100);
+        page = database.db.selectFrom(EVENTS).limit(100).fetch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Event> reflective() {
+        return page.into(Event.class);
+    }
+
+    @Benchmark
+    public List<Event> recordMapper() {
+        return page.map(EventRecordMapper.INSTANCE);
+    }
+
+    @Benchmark
+    public List<Event> fetchReflective() {
+        return database.db.selectFrom(EVENTS).limit(20).fetchInto(Event.class);
+    }
+
+    @Benchmark
+    public List<Event> fetchRecordMapper() {
+        return database.db.selectFrom(EVENTS).limit(20).fetch(EventRecordMapper.INSTANCE);
+    }
+}
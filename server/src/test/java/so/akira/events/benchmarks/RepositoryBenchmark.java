@@ -0,0 +1,87 @@
+package so.akira.events.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventRepository against a file-backed database, in WAL and in the default
+ * rollback-journal mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({ "wal", "delete" })
+    public String journalMode;
+
+    private BenchmarkDatabase database;
+    private EventCursor middle;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = new BenchmarkDatabase(journalMode, 10_000);
+        middle = new EventCursor(BenchmarkDatabase.START_DATE + 5_000, database.ids.get(5_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    private int randomId() {
+        return database.ids.get(ThreadLocalRandom.current().nextInt(database.ids.size()));
+    }
+
+    @Benchmark
+    public Event getEventById() {
+        return database.repository.getEventById(randomId());
+    }
+
+    @Benchmark
+    public EventPage getEventsFirstPage() {
+        return database.repository.getEvents(null, 20);
+    }
+
+    @Benchmark
+    public EventPage getEventsMiddlePage() {
+        return database.repository.getEvents(middle, 20);
+    }
+
+    @Benchmark
+    public Event insertEvent() throws Exception {
+        Event event = BenchmarkDatabase.newEvent(next++);
+        database.repository.insertEvent(event);
+        return event;
+    }
+
+    @Benchmark
+    public Event updateEvent() throws Exception {
+        Event event = BenchmarkDatabase.newEvent(next++);
+        database.repository.updateEvent(randomId(), event);
+        return event;
+    }
+}
@@ -0,0 +1,90 @@
+package so.akira.events.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.snapshot.EventSnapshot;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same filtered, sorted search against SQLite and against the in-memory
+ * snapshot of the same 100k events. The snapshot side includes its table
+ * version lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private BenchmarkDatabase database;
+    private EventSnapshot snapshot;
+    private EventSearchCriteria byPrice;
+    private EventSearchCriteria byStartDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase("wal", ROWS);
+        snapshot = new EventSnapshot(database.repository, true, 50, 3_600_000, 10_000);
+        snapshot.start();
+        while (!snapshot.isCurrent()) {
+            Thread.sleep(10);
+        }
+
+        // Price range over the whole table, sorted by another column: SQLite filters
+        // through idx_events_price and sorts what matches
+        byPrice = new EventSearchCriteria();
+        byPrice.setMinPrice(500);
+        byPrice.setMaxPrice(520);
+        byPrice.setSort("endDate");
+        byPrice.setOrder("desc");
+
+        // Served straight off idx_events_start_date
+        byStartDate = new EventSearchCriteria();
+        byStartDate.setFrom(BenchmarkDatabase.START_DATE + ROWS / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        snapshot.stop();
+        database.close();
+    }
+
+    @Benchmark
+    public EventPage sqliteByPrice() {
+        return database.repository.searchEvents(byPrice, null, 20);
+    }
+
+    @Benchmark
+    public EventPage snapshotByPrice() {
+        return snapshot.searchEvents(byPrice, null, 20).orElseThrow();
+    }
+
+    @Benchmark
+    public EventPage sqliteByStartDate() {
+        return database.repository.searchEvents(byStartDate, null, 20);
+    }
+
+    @Benchmark
+    public EventPage snapshotByStartDate() {
+        return snapshot.searchEvents(byStartDate, null, 20).orElseThrow();
+    }
+}
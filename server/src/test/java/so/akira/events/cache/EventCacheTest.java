@@ -0,0 +1,75 @@
+package so.akira.events.cache;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import so.akira.events.exceptions.CustomNoDataFoundException;
+import so.akira.events.models.Event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventCacheTest {
+
+    private EventCache newCache(long maximumSize) {
+        // Run maintenance on the caller so evictions are visible immediately
+        return new EventCache(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(Runnable::run)
+                .recordStats());
+    }
+
+    @Test
+    public void testReadThroughCountsHitsAndMisses() {
+        EventCache cache = newCache(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Event event = cache.get(1, id -> {
+                loads.incrementAndGet();
+                return new Event(id, "Test Event", 100, "started", 1, 2, 0, 0);
+            });
+            assertEquals("Test Event", event.getTitle(), "The loaded event should be returned");
+        }
+
+        assertEquals(1, loads.get(), "The loader should only run on the first read");
+        assertEquals(1, cache.stats().missCount(), "The first read should be a miss");
+        assertEquals(2, cache.stats().hitCount(), "Subsequent reads should be hits");
+    }
+
+    @Test
+    public void testInvalidateForcesReload() {
+        EventCache cache = newCache(10);
+
+        cache.get(1, id -> new Event(id, "Test Event", 100, "started", 1, 2, 0, 0));
+        cache.invalidate(1);
+        Event event = cache.get(1, id -> new Event(id, "Updated Event", 100, "started", 1, 2, 0, 0));
+
+        assertEquals("Updated Event", event.getTitle(), "An invalidated entry should be reloaded");
+    }
+
+    @Test
+    public void testMissesAreNotCached() {
+        EventCache cache = newCache(10);
+
+        assertThrows(CustomNoDataFoundException.class, () -> cache.get(1, id -> {
+            throw new CustomNoDataFoundException("No event found with id: " + id);
+        }));
+
+        assertEquals(0, cache.size(), "A failed load should not leave an entry behind");
+    }
+
+    @Test
+    public void testSizeBoundEvicts() {
+        EventCache cache = newCache(2);
+
+        for (int i = 1; i <= 5; i++) {
+            cache.get(i, id -> new Event(id, "Test Event", 100, "started", 1, 2, 0, 0));
+        }
+
+        assertEquals(2, cache.size(), "The cache should not grow past its maximum size");
+        assertEquals(3, cache.stats().evictionCount(), "Entries over the bound should be evicted");
+    }
+}
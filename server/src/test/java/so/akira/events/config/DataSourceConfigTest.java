@@ -0,0 +1,107 @@
+package so.akira.events.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataSourceConfigTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String pragma(Connection connection, String name) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("PRAGMA " + name)) {
+            return resultSet.getString(1);
+        }
+    }
+
+    @Test
+    public void testWriterAndReaderPools() throws SQLException {
+        String url = DataSourceConfig.url(tempDir.resolve("events.db").toString());
+
+        try (HikariDataSource writer = DataSourceConfig.writerPool(url, 5000, 2000, 1048576);
+                HikariDataSource reader = DataSourceConfig.readerPool(url, 2, 5000, 2000, 1048576)) {
+            try (Connection connection = writer.getConnection()) {
+                assertEquals("wal", pragma(connection, "journal_mode"), "The writer should enable WAL");
+                assertEquals("1", pragma(connection, "synchronous"), "The writer should use synchronous=NORMAL");
+                assertEquals("5000", pragma(connection, "busy_timeout"), "The busy timeout should be applied");
+                assertEquals("1048576", pragma(connection, "mmap_size"), "The mmap size should be applied");
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TABLE t (id INTEGER PRIMARY KEY)");
+                    statement.execute("INSERT INTO t DEFAULT VALUES");
+                }
+            }
+
+            try (Connection connection = reader.getConnection(); Statement statement = connection.createStatement()) {
+                assertEquals("-2000", pragma(connection, "cache_size"), "The cache size should be applied in KiB");
+                try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t")) {
+                    assertEquals(1, resultSet.getInt(1), "The reader should see committed writes");
+                }
+                assertThrows(SQLException.class, () -> statement.execute("INSERT INTO t DEFAULT VALUES"),
+                        "The reader should refuse writes");
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedDataSourceReleasesPermitOnClose() throws SQLException {
+        String url = DataSourceConfig.url(tempDir.resolve("events.db").toString());
+
+        try (HikariDataSource writer = DataSourceConfig.writerPool(url, 5000, 2000, 0);
+                HikariDataSource reader = DataSourceConfig.readerPool(url, 2, 5000, 2000, 0)) {
+            writer.getConnection().close();
+            BoundedDataSource bounded = new BoundedDataSource(reader, 1, 100);
+
+            Connection first = bounded.getConnection();
+            assertEquals(0, bounded.availablePermits(), "An open connection should hold the only permit");
+            assertThrows(SQLTransientConnectionException.class, bounded::getConnection,
+                    "A caller past the limit should time out");
+
+            first.close();
+            first.close();
+            assertEquals(1, bounded.availablePermits(), "Closing should release the permit exactly once");
+
+            try (Connection second = bounded.getConnection()) {
+                assertTrue(second.isValid(1), "The permit should be reusable after release");
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalVacuumOnlyRewritesAnExistingDatabaseWhenAsked() throws SQLException {
+        String url = DataSourceConfig.url(tempDir.resolve("events.db").toString());
+        String existingUrl = DataSourceConfig.url(tempDir.resolve("existing.db").toString());
+
+        try (HikariDataSource fresh = DataSourceConfig.writerPool(url, 5000, 2000, 0);
+                HikariDataSource existing = DataSourceConfig.writerPool(existingUrl, 5000, 2000, 0)) {
+            DataSourceConfig.incrementalVacuum(fresh, false);
+            try (Connection connection = fresh.getConnection()) {
+                assertEquals("2", pragma(connection, "auto_vacuum"), "A new database should switch for free");
+            }
+
+            try (Connection connection = existing.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE t (id INTEGER PRIMARY KEY)");
+            }
+            DataSourceConfig.incrementalVacuum(existing, false);
+            try (Connection connection = existing.getConnection()) {
+                assertEquals("0", pragma(connection, "auto_vacuum"), "An existing database should be left alone");
+            }
+            DataSourceConfig.incrementalVacuum(existing, true);
+            try (Connection connection = existing.getConnection()) {
+                assertEquals("2", pragma(connection, "auto_vacuum"), "Asking for it should switch through a VACUUM");
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package so.akira.events.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import so.akira.events.models.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends EventApiTest {
+
+    @Test
+    public void testSingleEventRevalidatesUntilItChanges() throws Exception {
+        Event event = createEvent("Conditional Event");
+
+        MvcResult first = mockMvc.perform(get("/api/v1/events/" + event.getId()))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag, "A single event should carry an ETag");
+        assertNull(first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED),
+                "A single event should not offer second-resolution Last-Modified");
+        mockMvc.perform(get("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Sat, 01 Jan 2100 00:00:00 GMT"))
+                .andExpect(status().isOk());
+
+        MvcResult notModified = mockMvc.perform(get("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals("", notModified.getResponse().getContentAsString(), "A 304 should have no body");
+
+        event.setTitle("Conditional Event Renamed");
+        mockMvc.perform(put("/api/v1/events/" + event.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(status().isOk());
+
+        MvcResult changed = mockMvc.perform(get("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG),
+                "An update should change the ETag");
+    }
+
+    @Test
+    public void testListRevalidatesAgainstTableVersion() throws Exception {
+        createEvent("Listed Event");
+
+        MvcResult first = mockMvc.perform(get("/api/v1/events"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag, "A list should carry an ETag");
+        assertEquals(1, first.getResponse().getHeaders(HttpHeaders.ETAG).size(), "The ETag should be set once");
+        assertNull(first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED),
+                "A list should not offer second-resolution Last-Modified");
+        mockMvc.perform(get("/api/v1/events").header(HttpHeaders.IF_MODIFIED_SINCE, "Sat, 01 Jan 2100 00:00:00 GMT"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/events").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/events/search").param("status", "started").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        createEvent("Another Listed Event");
+
+        mockMvc.perform(get("/api/v1/events").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+}
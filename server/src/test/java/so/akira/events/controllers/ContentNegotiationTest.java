@@ -0,0 +1,142 @@
+package so.akira.events.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import so.akira.events.encoding.ColumnarEventPageConverter;
+import so.akira.events.models.Event;
+import so.akira.events.services.EventService;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ContentNegotiationTest {
+
+    private static final String PAGE = "/api/v1/events?limit=50";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EventService eventService;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    public void setUp() {
+        if (eventService.getEventsVersion().getVersion() > 0) {
+            return;
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(new Event("Negotiated Event " + i, 100 + i, EventApiTest.START_DATE + i, EventApiTest.START_DATE + 86400 + i));
+        }
+        eventService.insertEvents(events);
+    }
+
+    private MvcResult fetch(MediaType accept) throws Exception {
+        return mockMvc.perform(get(PAGE).accept(accept)).andReturn();
+    }
+
+    @Test
+    public void testEncodingsCarryTheSamePage() throws Exception {
+        MvcResult json = fetch(MediaType.ALL);
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(json.getResponse().getContentType())),
+                "A wildcard Accept should keep getting JSON");
+        JsonNode expected = objectMapper.readTree(json.getResponse().getContentAsByteArray());
+        assertEquals(50, expected.get("items").size());
+
+        MvcResult cbor = fetch(MediaType.parseMediaType("application/cbor"));
+        assertEquals("application/cbor", cbor.getResponse().getContentType());
+        assertEquals(expected, new CBORMapper().readTree(cbor.getResponse().getContentAsByteArray()));
+
+        MvcResult smile = fetch(MediaType.parseMediaType("application/x-jackson-smile"));
+        assertEquals("application/x-jackson-smile", smile.getResponse().getContentType());
+        assertEquals(expected, new SmileMapper().readTree(smile.getResponse().getContentAsByteArray()));
+
+        MvcResult columnar = fetch(ColumnarEventPageConverter.COLUMNAR_JSON);
+        assertTrue(ColumnarEventPageConverter.COLUMNAR_JSON.isCompatibleWith(
+                MediaType.parseMediaType(columnar.getResponse().getContentType())));
+        JsonNode columns = objectMapper.readTree(columnar.getResponse().getContentAsByteArray());
+        assertEquals(50, columns.get("count").asInt());
+        for (int i = 0; i < 50; i++) {
+            JsonNode item = expected.get("items").get(i);
+            assertEquals(item.get("id"), columns.get("id").get(i));
+            assertEquals(item.get("title"), columns.get("title").get(i));
+            assertEquals(item.get("endDate"), columns.get("endDate").get(i));
+        }
+
+        int jsonBytes = json.getResponse().getContentAsByteArray().length;
+        assertTrue(cbor.getResponse().getContentAsByteArray().length < jsonBytes, "CBOR should be smaller than JSON");
+        assertTrue(smile.getResponse().getContentAsByteArray().length < jsonBytes, "Smile should be smaller than JSON");
+        assertTrue(columnar.getResponse().getContentAsByteArray().length < jsonBytes * 2 / 3,
+                "Columnar JSON should drop the repeated field names");
+    }
+
+    @Test
+    public void testNegotiatedResponsesVaryByAccept() throws Exception {
+        MediaType cborType = MediaType.parseMediaType("application/cbor");
+        MvcResult json = fetch(MediaType.APPLICATION_JSON);
+        MvcResult cbor = fetch(cborType);
+        assertTrue(json.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        assertTrue(cbor.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+        String eTag = cbor.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(json.getResponse().getHeader(HttpHeaders.ETAG), eTag,
+                "Each encoding of a page should have its own ETag");
+        mockMvc.perform(get(PAGE).accept(cborType).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(result -> assertEquals(304, result.getResponse().getStatus()));
+        mockMvc.perform(get(PAGE).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(result -> assertEquals(200, result.getResponse().getStatus(),
+                        "The CBOR ETag should not validate a JSON response"));
+
+        int id = objectMapper.readTree(json.getResponse().getContentAsByteArray()).get("items").get(0).get("id").asInt();
+        MvcResult single = mockMvc.perform(get("/api/v1/events/" + id).accept(cborType)).andReturn();
+        assertEquals(200, single.getResponse().getStatus());
+        assertTrue(single.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    public void testLargeResponsesAreCompressed() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + PAGE))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes();
+        assertEquals(50, objectMapper.readTree(body).get("items").size());
+        assertTrue(response.body().length < body.length / 2, "A page should compress well");
+    }
+}
@@ -0,0 +1,52 @@
+package so.akira.events.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import so.akira.events.models.Event;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base of the controller tests that drive the whole application through
+ * MockMvc, with the fixtures they share.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class EventApiTest {
+
+    static final int START_DATE = 1900000000;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    static Event newEvent(String title) {
+        Event event = new Event(title, 100, START_DATE, START_DATE + 86400);
+        event.setStatus("started");
+        return event;
+    }
+
+    /**
+     * Creates the event through POST /api/v1/events/new and returns it as created.
+     */
+    protected Event createEvent(String title) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/events/new")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newEvent(title))))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), Event.class);
+    }
+}
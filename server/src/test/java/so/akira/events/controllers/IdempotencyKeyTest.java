@@ -0,0 +1,134 @@
+package so.akira.events.controllers;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import so.akira.events.idempotency.IdempotencyStore;
+import so.akira.events.idempotency.IdempotentResponse;
+import so.akira.events.models.Event;
+import so.akira.events.repositories.IdempotencyKeyRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static so.akira.events.db.tables.Events.EVENTS;
+import static so.akira.events.db.tables.IdempotencyKeys.IDEMPOTENCY_KEYS;
+
+public class IdempotencyKeyTest extends EventApiTest {
+
+    @Autowired
+    private DSLContext dslContext;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private MvcResult create(String key, String title) throws Exception {
+        return mockMvc.perform(post("/api/v1/events/new")
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newEvent(title))))
+                .andReturn();
+    }
+
+    private int countTitled(String title) {
+        return dslContext.fetchCount(EVENTS, EVENTS.TITLE.eq(title));
+    }
+
+    @Test
+    public void testRetryIsAnsweredWithTheOriginalResponse() throws Exception {
+        MvcResult first = create("retry-key", "Retried Event");
+        assertEquals(201, first.getResponse().getStatus());
+        assertEquals("false", first.getResponse().getHeader(IdempotencyStore.REPLAYED_HEADER));
+
+        MvcResult retry = create("retry-key", "Retried Event");
+        assertEquals(201, retry.getResponse().getStatus(), "A retry should get the original status");
+        assertEquals("true", retry.getResponse().getHeader(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(first.getResponse().getContentAsString(), retry.getResponse().getContentAsString(),
+                "A retry should get the original body, id included");
+        assertEquals(1, countTitled("Retried Event"), "A retry should not insert again");
+        assertEquals(1, dslContext.fetchCount(IDEMPOTENCY_KEYS, IDEMPOTENCY_KEYS.KEY.eq("retry-key")));
+
+        MvcResult reused = create("retry-key", "Another Event");
+        assertEquals(422, reused.getResponse().getStatus(), "A key reused for another request should be rejected");
+        assertEquals(0, countTitled("Another Event"));
+
+        mockMvc.perform(post("/api/v1/events/new")
+                .header(IdempotencyStore.HEADER, "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Event("Long Key Event", 100, START_DATE, START_DATE + 1))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testFailedSaveLeavesNoEventBehind() throws Exception {
+        dslContext.execute("CREATE TRIGGER fail_idempotency_save BEFORE INSERT ON idempotency_keys "
+                + "WHEN NEW.key = 'failing-key' BEGIN SELECT RAISE(ABORT, 'idempotency store unavailable'); END");
+        try {
+            MvcResult failed = create("failing-key", "Unsaved Event");
+            assertEquals(500, failed.getResponse().getStatus());
+            assertEquals(0, countTitled("Unsaved Event"), "The insert should be undone along with the key");
+        } finally {
+            dslContext.execute("DROP TRIGGER fail_idempotency_save");
+        }
+
+        MvcResult retry = create("failing-key", "Unsaved Event");
+        assertEquals(201, retry.getResponse().getStatus());
+        assertEquals("false", retry.getResponse().getHeader(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(1, countTitled("Unsaved Event"), "The retry should insert exactly once");
+    }
+
+    @Test
+    public void testKeysOutliveTheMemoryTier() throws Exception {
+        MvcResult first = create("persisted-key", "Persisted Event");
+        assertEquals(201, first.getResponse().getStatus());
+
+        // A fresh store has nothing in memory, like after a restart or an eviction
+        IdempotencyStore restarted = new IdempotencyStore(idempotencyKeyRepository, objectMapper, 10, 86400);
+        String fingerprint = restarted.fingerprint("POST /api/v1/events/new", newEvent("Persisted Event"));
+        IdempotentResponse response = restarted.execute("persisted-key", fingerprint, () -> {
+            throw new AssertionError("A persisted key should not run the request again");
+        });
+        assertTrue(response.isReplayed());
+        assertEquals(first.getResponse().getContentAsString(), response.getBody());
+    }
+
+    @Test
+    public void testConcurrentDuplicatesCollapseToOneInsert() throws Exception {
+        int clients = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<MvcResult>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return create("concurrent-key", "Concurrent Event");
+                }));
+            }
+            start.countDown();
+
+            String body = null;
+            for (Future<MvcResult> result : results) {
+                MvcResult response = result.get();
+                assertEquals(201, response.getResponse().getStatus());
+                if (body == null) {
+                    body = response.getResponse().getContentAsString();
+                }
+                assertEquals(body, response.getResponse().getContentAsString(), "Every client should see the same event");
+            }
+            assertEquals(1, countTitled("Concurrent Event"), "Concurrent duplicates should insert once");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package so.akira.events.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import so.akira.events.models.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class OptimisticConcurrencyTest extends EventApiTest {
+
+    private String eTagOf(int id) throws Exception {
+        return mockMvc.perform(get("/api/v1/events/" + id)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    public void testPutWithStaleIfMatchIsRejected() throws Exception {
+        Event event = createEvent("Contended Event");
+        String eTag = eTagOf(event.getId());
+
+        event.setTitle("First Admin Edit");
+        MvcResult first = mockMvc.perform(put("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newETag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag, "A successful update should return the new ETag");
+
+        event.setTitle("Second Admin Edit");
+        MvcResult stale = mockMvc.perform(put("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(status().isPreconditionFailed())
+                .andReturn();
+        assertEquals(newETag, stale.getResponse().getHeader(HttpHeaders.ETAG),
+                "A rejected update should point at the current version");
+
+        Event stored = objectMapper.readValue(mockMvc.perform(get("/api/v1/events/" + event.getId()))
+                .andReturn().getResponse().getContentAsString(), Event.class);
+        assertEquals("First Admin Edit", stored.getTitle(), "The stale update should not overwrite the first one");
+
+        mockMvc.perform(put("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_MATCH, "\"999999-0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_MATCH, "*")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(event)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testPatchUpdatesOnlyTheGivenFields() throws Exception {
+        Event event = createEvent("Patched Event");
+
+        MvcResult result = mockMvc.perform(patch("/api/v1/events/" + event.getId())
+                .header(HttpHeaders.IF_MATCH, eTagOf(event.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\": 250}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Event patched = objectMapper.readValue(result.getResponse().getContentAsString(), Event.class);
+        assertEquals(250, patched.getPrice(), "The given field should change");
+        assertEquals("Patched Event", patched.getTitle(), "Fields left out should be kept");
+        assertEquals(START_DATE, patched.getStartDate(), "Fields left out should be kept");
+        assertEquals(event.getVersion() + 1, patched.getVersion(), "A patch should bump the version");
+        assertEquals("\"" + event.getId() + "-" + patched.getVersion() + "\"",
+                result.getResponse().getHeader(HttpHeaders.ETAG), "A patch should return the new ETag");
+
+        mockMvc.perform(patch("/api/v1/events/" + event.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\": 300, \"version\": " + event.getVersion() + "}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(patch("/api/v1/events/" + event.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"endDate\": " + (START_DATE - 1) + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/v1/events/" + event.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"x\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/v1/events/" + event.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/v1/events/999999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\": 300}"))
+                .andExpect(status().isNotFound());
+    }
+}
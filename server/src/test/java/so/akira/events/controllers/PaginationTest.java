@@ -0,0 +1,28 @@
+package so.akira.events.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import so.akira.events.models.EventCursor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PaginationTest extends EventApiTest {
+
+    @Test
+    public void testPastTheLastPageIsAnEmptyPage() throws Exception {
+        createEvent("Paged Event");
+
+        MvcResult result = mockMvc.perform(get("/api/v1/events")
+                .param("cursor", new EventCursor(Integer.MAX_VALUE, Integer.MAX_VALUE).encode()))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertEquals(0, page.get("items").size(), "A page past the last event should have no items");
+        assertTrue(page.get("nextCursor").isNull(), "A page past the last event should have no next cursor");
+    }
+}
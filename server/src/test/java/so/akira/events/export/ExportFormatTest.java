@@ -0,0 +1,64 @@
+package so.akira.events.export;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import so.akira.events.models.Event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String export(ExportFormat format, Event... events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EventSink sink = format.open(out, objectMapper)) {
+            for (Event event : events) {
+                sink.write(event);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testNdjsonWritesOneObjectPerLine() throws IOException {
+        String body = export(ExportFormat.NDJSON,
+                new Event(1, "First", 100, "started", 10, 20, 5, 0),
+                new Event(2, "Second", 200, "paused", 30, 40, 5, 6));
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length, "Each event should be on its own line");
+        assertTrue(body.endsWith("\n"), "Every line should be newline terminated");
+        assertTrue(lines[1].startsWith("{"), "Lines should not carry a leading separator");
+
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(2, second.get("id").asInt(), "Each line should be a complete event");
+        assertEquals("paused", second.get("status").asText(), "Each line should be a complete event");
+    }
+
+    @Test
+    public void testCsvQuotesTitlesThatNeedIt() throws IOException {
+        String body = export(ExportFormat.CSV,
+                new Event(1, "Plain", 100, "started", 10, 20, 5, 0),
+                new Event(2, "Rock, \"Paper\"", 200, "paused", 30, 40, 5, 6));
+
+        String[] lines = body.split("\n");
+        assertEquals("id,title,price,status,startDate,endDate,createdAt,updatedAt", lines[0],
+                "The header row should come first");
+        assertEquals("1,Plain,100,started,10,20,5,0", lines[1], "Plain titles should not be quoted");
+        assertEquals("2,\"Rock, \"\"Paper\"\"\",200,paused,30,40,5,6", lines[2],
+                "Titles with commas or quotes should be quoted with doubled quotes");
+    }
+
+    @Test
+    public void testUnknownFormatIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.fromParam("xml"));
+    }
+}
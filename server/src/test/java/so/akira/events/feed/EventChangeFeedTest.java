@@ -0,0 +1,158 @@
+package so.akira.events.feed;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import so.akira.events.models.Event;
+import so.akira.events.models.EventChange;
+import so.akira.events.models.EventPatch;
+import so.akira.events.services.EventService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = "events.feed.history-size=4")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class EventChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventChangeFeed eventChangeFeed;
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        return mockMvc.perform(lastEventId == null
+                ? get("/api/v1/events/changes")
+                : get("/api/v1/events/changes").header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private String await(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = response.getContentAsString();
+        while (!condition.test(body) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = response.getContentAsString();
+        }
+        return body;
+    }
+
+    private Event newEvent(String title) {
+        Event event = new Event(title, 100, 1900000000, 1900086400);
+        event.setStatus("started");
+        return event;
+    }
+
+    @Test
+    public void testCommittedWritesAreStreamed() throws Exception {
+        MockHttpServletResponse response = subscribe(null);
+        await(response, body -> eventChangeFeed.getSubscriberCount() > 0);
+
+        Event event = newEvent("Streamed Event");
+        eventService.insertEvent(event);
+        event.setTitle("Streamed Event Renamed");
+        eventService.updateEvent(event.getId(), event);
+        eventService.deleteEvent(event.getId());
+
+        String body = await(response, text -> text.contains("event:delete"));
+        assertTrue(body.contains("event:insert"), "The insert should be streamed");
+        assertTrue(body.contains("\"title\":\"Streamed Event Renamed\",\"price\":100"), "The update should carry the row");
+        assertTrue(body.contains("\"version\":1"), "The update should carry the new row version");
+        assertTrue(body.indexOf("event:insert") < body.indexOf("event:update")
+                && body.indexOf("event:update") < body.indexOf("event:delete"), "Changes should arrive in commit order");
+    }
+
+    @Test
+    public void testConcurrentWritesArePublishedInCommitOrder() throws Exception {
+        Event event = newEvent("Contended Event");
+        eventService.insertEvent(event);
+        int subscribers = eventChangeFeed.getSubscriberCount();
+        MockHttpServletResponse response = subscribe(null);
+        await(response, body -> eventChangeFeed.getSubscriberCount() > subscribers);
+
+        // Patches of the same row from many threads, grouped into shared commits by the writer
+        int writers = 8;
+        int patches = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                int writer = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < patches; j++) {
+                        EventPatch patch = new EventPatch();
+                        patch.setPrice(writer * 100 + j);
+                        eventService.patchEvent(event.getId(), patch, null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int last = event.getVersion() + writers * patches;
+        String body = await(response, text -> text.contains("\"version\":" + last));
+        Matcher versions = Pattern.compile("\"version\":(\\d+)").matcher(body);
+        int previous = event.getVersion();
+        int seen = 0;
+        while (versions.find()) {
+            int version = Integer.parseInt(versions.group(1));
+            assertEquals(previous + 1, version, "Every version should follow the one committed before it");
+            previous = version;
+            seen++;
+        }
+        assertEquals(writers * patches, seen, "Every patch should be streamed once");
+    }
+
+    @Test
+    public void testResumeReplaysOnlyMissedChanges() throws Exception {
+        eventChangeFeed.publish(EventChange.DELETE, 101, null);
+        String lastSeen = eventChangeFeed.id(eventChangeFeed.lastSeq());
+        eventChangeFeed.publish(EventChange.DELETE, 102, null);
+        eventChangeFeed.publish(EventChange.DELETE, 103, null);
+
+        String body = await(subscribe(lastSeen), text -> text.contains("\"id\":103"));
+        assertFalse(body.contains("\"id\":101"), "Changes up to Last-Event-ID should not be replayed");
+        assertTrue(body.contains("\"id\":102") && body.contains("\"id\":103"), "Missed changes should be replayed");
+        assertFalse(body.contains("event:" + EventChangeFeed.RESET), "A resume within history needs no reset");
+    }
+
+    @Test
+    public void testResumeBeyondHistoryAsksForRefetch() throws Exception {
+        eventChangeFeed.publish(EventChange.DELETE, 201, null);
+        String lastSeen = eventChangeFeed.id(eventChangeFeed.lastSeq());
+        for (int i = 0; i < 5; i++) {
+            eventChangeFeed.publish(EventChange.DELETE, 202 + i, null);
+        }
+
+        String body = await(subscribe(lastSeen), text -> text.contains("event:" + EventChangeFeed.RESET));
+        assertTrue(body.contains("event:" + EventChangeFeed.RESET), "A gap beyond history should reset the client");
+
+        body = await(subscribe("someotherrun-3"), text -> text.contains("event:" + EventChangeFeed.RESET));
+        assertTrue(body.contains("event:" + EventChangeFeed.RESET), "An id from another run should reset the client");
+    }
+}
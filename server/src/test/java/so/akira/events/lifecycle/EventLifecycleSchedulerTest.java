@@ -0,0 +1,97 @@
+package so.akira.events.lifecycle;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import so.akira.events.models.Event;
+import so.akira.events.services.EventService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static so.akira.events.db.tables.Events.EVENTS;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class EventLifecycleSchedulerTest {
+
+    @Autowired
+    private EventLifecycleScheduler scheduler;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private DSLContext dslContext;
+
+    private static int now() {
+        return (int) (System.currentTimeMillis() / 1000);
+    }
+
+    private String statusOf(int id) {
+        return dslContext.select(EVENTS.STATUS).from(EVENTS).where(EVENTS.ID.eq(id)).fetchOne(EVENTS.STATUS);
+    }
+
+    private boolean awaitStatus(List<Integer> ids, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (ids.stream().allMatch(id -> status.equals(statusOf(id)))) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    @Test
+    public void testEventsCompleteWhenTheirEndDatePasses() throws Exception {
+        int end = now() + 1;
+        List<Integer> ending = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Event event = new Event("Ending Event " + i, 100, end - 3600, end);
+            eventService.insertEvent(event);
+            ending.add(event.getId());
+        }
+        Event later = new Event("Later Event", 100, end - 3600, end + 86400);
+        eventService.insertEvent(later);
+
+        Event paused = new Event("Paused Event", 100, end - 3600, end + 86400);
+        eventService.insertEvent(paused);
+        paused.setStatus("paused");
+        paused.setEndDate(end);
+        eventService.updateEvent(paused.getId(), paused);
+        ending.add(paused.getId());
+
+        long batchesBefore = scheduler.getBatches();
+        assertTrue(awaitStatus(ending, "completed"), "Events should complete once their end date passes");
+        assertEquals("started", statusOf(later.getId()), "Events still running should be left alone");
+        assertTrue(scheduler.getBatches() - batchesBefore < ending.size(),
+                "Events ending together should be completed in shared UPDATEs");
+
+        Event completed = eventService.getEventById(ending.get(0));
+        assertEquals(1, completed.getVersion(), "Completing an event should bump its version");
+    }
+
+    @Test
+    public void testScheduleIsRecoveredFromTheDatabaseOnStartup() throws Exception {
+        scheduler.stop();
+
+        // Written behind the scheduler's back, as if they had ended while the server was down
+        int now = now();
+        List<Integer> overdue = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            overdue.add(dslContext.insertInto(EVENTS, EVENTS.TITLE, EVENTS.PRICE, EVENTS.START_DATE, EVENTS.END_DATE)
+                    .values("Overdue Event " + i, 100, now - 7200, now - 3600 + i)
+                    .returning(EVENTS.ID)
+                    .fetchOne()
+                    .getId());
+        }
+
+        scheduler.start();
+        assertTrue(awaitStatus(overdue, "completed"), "Events that ended while stopped should complete on startup");
+    }
+}
@@ -0,0 +1,129 @@
+package so.akira.events.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import so.akira.events.EventsApplication;
+import so.akira.events.models.BatchItemResult;
+import so.akira.events.models.Event;
+import so.akira.events.services.EventService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares throughput and p99 latency of the platform-thread and virtual-thread
+ * request modes against the same mixed read workload. Run with -Pload-test.
+ */
+@Tag("load")
+public class VirtualThreadLoadTest {
+
+    private static final int EVENTS = 2000;
+    private static final int CLIENTS = 256;
+    private static final int REQUESTS_PER_CLIENT = 40;
+
+    @Test
+    public void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-10s %12s %10s %10s%n", "mode", "requests/s", "p50 ms", "p99 ms");
+        System.out.printf("%-10s %12.0f %10.2f %10.2f%n", "platform", platform.throughput, platform.p50Ms, platform.p99Ms);
+        System.out.printf("%-10s %12.0f %10.2f %10.2f%n", "virtual", virtual.throughput, virtual.p50Ms, virtual.p99Ms);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EventsApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads,
+                        // Every client shares one address here, and the point is raw throughput
+                        "events.admission.enabled=false")
+                .run()) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            List<Integer> ids = seed(context.getBean(EventService.class));
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder().executor(clients).build();
+                String base = "http://localhost:" + port + "/api/v1/events";
+
+                // Warm up JIT, pools and the event cache
+                fire(http, clients, base, ids, CLIENTS / 4);
+
+                long started = System.nanoTime();
+                long[] latencies = fire(http, clients, base, ids, CLIENTS);
+                double seconds = (System.nanoTime() - started) / 1e9;
+
+                Arrays.sort(latencies);
+                return new Result(latencies.length / seconds, percentileMs(latencies, 0.50),
+                        percentileMs(latencies, 0.99));
+            }
+        }
+    }
+
+    private List<Integer> seed(EventService eventService) {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        List<Event> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new Event("Load Event " + i, 100 + i, (int) startOfDayInSeconds + i,
+                    (int) startOfDayInSeconds + 86400 + i));
+        }
+
+        return eventService.insertEvents(events).stream().map(BatchItemResult::getId).toList();
+    }
+
+    /**
+     * Each client alternates a page of the list, a search and a single event lookup.
+     */
+    private long[] fire(HttpClient http, ExecutorService clients, String base, List<Integer> ids, int clientCount)
+            throws Exception {
+        List<Future<long[]>> futures = new ArrayList<>(clientCount);
+        for (int c = 0; c < clientCount; c++) {
+            int client = c;
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[REQUESTS_PER_CLIENT];
+                for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                    String path = switch (r % 3) {
+                        case 0 -> "?limit=20";
+                        case 1 -> "/search?minPrice=" + (100 + (client * r) % EVENTS) + "&limit=20";
+                        default -> "/" + ids.get((client * REQUESTS_PER_CLIENT + r) % ids.size());
+                    };
+
+                    long started = System.nanoTime();
+                    HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    latencies[r] = System.nanoTime() - started;
+                    assertEquals(200, response.statusCode(), "GET " + path + " should succeed");
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[clientCount * REQUESTS_PER_CLIENT];
+        for (int c = 0; c < clientCount; c++) {
+            System.arraycopy(futures.get(c).get(), 0, all, c * REQUESTS_PER_CLIENT, REQUESTS_PER_CLIENT);
+        }
+        return all;
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1e6;
+    }
+
+    private record Result(double throughput, double p50Ms, double p99Ms) {
+    }
+}
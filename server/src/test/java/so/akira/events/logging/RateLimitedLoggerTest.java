@@ -0,0 +1,32 @@
+package so.akira.events.logging;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitedLoggerTest {
+
+    @Test
+    public void testEachFormatIsLimitedPerWindow() throws Exception {
+        RateLimitedLogger logger = new RateLimitedLogger(LoggerFactory.getLogger(RateLimitedLoggerTest.class), 3,
+                Duration.ofMillis(200));
+
+        for (int i = 0; i < 10; i++) {
+            logger.warn("Probe {} missed", i);
+        }
+        assertEquals(7, logger.getSuppressed(), "Only the first 3 messages of a format should get through");
+
+        logger.warn("Another message {}", 1);
+        assertEquals(7, logger.getSuppressed(), "Other formats should have their own permits");
+
+        logger.debug("Probe {} missed", 11);
+        assertEquals(7, logger.getSuppressed(), "Debug should not be limited");
+
+        Thread.sleep(250);
+        logger.warn("Probe {} missed", 12);
+        assertEquals(7, logger.getSuppressed(), "A new window should hand out permits again");
+    }
+}
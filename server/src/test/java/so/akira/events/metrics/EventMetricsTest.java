@@ -0,0 +1,54 @@
+package so.akira.events.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+public class EventMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testMissIsTaggedNotFoundOnEveryLayer() throws Exception {
+        mockMvc.perform(get("/api/v1/events/987654")).andExpect(status().isNotFound());
+
+        assertEquals(1, meterRegistry.get("events.controller")
+                .tags("method", "getEvent", "outcome", "not_found").timer().count(),
+                "The controller timer should record the miss");
+        assertEquals(1, meterRegistry.get("events.repository")
+                .tags("method", "findEventById", "outcome", "not_found").timer().count(),
+                "The repository timer should record the miss");
+        assertTrue(meterRegistry.get("events.jooq.execute")
+                .tags("datasource", "reader", "type", "read", "outcome", "success").timer().count() >= 1,
+                "The query should be timed on the reader");
+    }
+
+    @Test
+    public void testPrometheusEndpointExposesPoolMetrics() throws Exception {
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("hikaricp_connections_active"), "Hikari pool gauges should be exposed");
+        assertTrue(body.contains("events_reader_permits_available"), "Reader permit gauges should be exposed");
+        assertTrue(body.contains("events_writer_queue_depth"), "Writer queue gauges should be exposed");
+    }
+}
@@ -1,23 +1,43 @@
 package so.akira.events.repositories;
 
 import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.jooq.impl.DSL;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import so.akira.events.config.JooqConfig;
 import so.akira.events.config.JooqTestConfig;
 import so.akira.events.exceptions.CustomNoDataFoundException;
+import so.akira.events.export.EventSink;
+import so.akira.events.models.BatchItemResult;
+import so.akira.events.models.DailyTotal;
 import so.akira.events.models.Event;
-
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.models.StatusTotal;
+import so.akira.events.models.TableVersion;
+import so.akira.events.models.TitleMatch;
+import so.akira.events.models.TitleSearchPage;
+
+import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static so.akira.events.db.tables.Events.EVENTS;
 
-@SpringBootTest(classes = { JooqTestConfig.class, EventRepository.class })
+@SpringBootTest(classes = { JooqTestConfig.class, JooqConfig.class, EventRepository.class })
+@ActiveProfiles("test")
 public class EventRepositoryTest {
 
     @Autowired
@@ -78,6 +98,152 @@ public class EventRepositoryTest {
         assertEquals("Test Event", fetchedEvent.getTitle(), "The title of the fetched event should be 'Test Event'");
     }
 
+    @Test
+    public void testExportEventsStreamsEveryRowInIdOrder() throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            events.add(new Event("Export Event " + i, 100 + i, 1900000000 - i, 1900086400));
+        }
+        eventRepository.insertEvents(events);
+
+        List<Integer> exported = new ArrayList<>();
+        long count = eventRepository.exportEvents(new EventSink() {
+            @Override
+            public void write(Event event) {
+                exported.add(event.getId());
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        assertEquals(2500, count, "Every row should be exported");
+        assertEquals(events.stream().map(Event::getId).toList(), exported, "Rows should be exported in id order");
+    }
+
+    @Test
+    public void testWritesMoveRowAndTableVersions() throws SQLException {
+        TableVersion before = eventRepository.getEventsVersion();
+
+        Event event = new Event("Versioned Event", 100, 1900000000, 1900086400);
+        event.setStatus("started");
+        eventRepository.insertEvent(event);
+        assertEquals(0, eventRepository.getEventById(event.getId()).getVersion(), "A new row should start at 0");
+
+        eventRepository.updateEvent(event.getId(), event);
+        eventRepository.updateEvents(List.of(eventRepository.getEventById(event.getId())));
+        assertEquals(2, eventRepository.getEventById(event.getId()).getVersion(),
+                "Single and batch updates should each bump the row version");
+
+        eventRepository.deleteEvent(event.getId());
+        assertEquals(before.getVersion() + 4, eventRepository.getEventsVersion().getVersion(),
+                "Every insert, update and delete should bump the table version");
+    }
+
+    @Test
+    public void testAggregatesTrackEveryWrite() throws SQLException {
+        int day = 1900000000 / 86400 * 86400;
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Event event = new Event("Aggregated Event " + i, 100 * (i + 1), day + (i % 3) * 86400, day + 5 * 86400);
+            event.setStatus(i % 2 == 0 ? "started" : "paused");
+            events.add(event);
+        }
+        eventRepository.insertEvents(events);
+
+        Event moved = eventRepository.getEventById(events.get(0).getId());
+        moved.setStatus("completed");
+        moved.setPrice(999);
+        moved.setStartDate(day + 3 * 86400);
+        eventRepository.updateEvent(moved.getId(), moved);
+
+        Event renamed = eventRepository.getEventById(events.get(1).getId());
+        renamed.setTitle("Only The Title Changed");
+        eventRepository.updateEvent(renamed.getId(), renamed);
+
+        eventRepository.deleteEvents(List.of(events.get(2).getId(), events.get(3).getId()));
+
+        Map<String, StatusTotal> totals = new HashMap<>();
+        eventRepository.getStatusTotals().forEach(total -> totals.put(total.getStatus(), total));
+        assertEquals(3, totals.size(), "Every status should have a row");
+        for (String status : List.of("started", "paused", "completed")) {
+            Record2<Integer, BigDecimal> expected = dslContext
+                    .select(DSL.count(), DSL.coalesce(DSL.sum(EVENTS.PRICE), BigDecimal.ZERO))
+                    .from(EVENTS).where(EVENTS.STATUS.eq(status)).and(EVENTS.DELETED_AT.isNull()).fetchOne();
+            assertEquals(expected.value1().longValue(), totals.get(status).getCount(), "Count of " + status);
+            assertEquals(expected.value2().longValue(), totals.get(status).getPriceTotal(), "Price total of " + status);
+        }
+
+        List<DailyTotal> daily = eventRepository.getDailyTotals(null, null, EventRepository.MAX_STATS_DAYS);
+        Map<Integer, Integer> expectedDaily = dslContext.select(EVENTS.START_DATE.div(86400), DSL.count())
+                .from(EVENTS).where(EVENTS.DELETED_AT.isNull()).groupBy(EVENTS.START_DATE.div(86400)).fetchMap(Record2::value1, Record2::value2);
+        assertEquals(expectedDaily.size(), daily.size(), "Days without events should be absent");
+        for (DailyTotal total : daily) {
+            int epochDay = (int) LocalDate.parse(total.getDate()).toEpochDay();
+            assertEquals(expectedDaily.get(epochDay).longValue(), total.getCount(), "Count of " + total.getDate());
+        }
+
+        LocalDate first = LocalDate.ofEpochDay(day / 86400);
+        assertEquals(List.of(first.plusDays(1).toString(), first.plusDays(2).toString()),
+                eventRepository.getDailyTotals(first.plusDays(1), first.plusDays(2), 10).stream()
+                        .map(DailyTotal::getDate).toList(),
+                "The range should be inclusive on both ends");
+    }
+
+    @Test
+    public void testSearchTitlesRanksAndHighlights() throws SQLException {
+        List<Event> events = new ArrayList<>();
+        for (String title : List.of("Jazz Night", "Jazz & Blues <Live>", "Summer Jazz Jazz Festival", "Rock Night",
+                "Jazzercise Morning")) {
+            events.add(new Event(title, 100, 1900000000, 1900086400));
+        }
+        eventRepository.insertEvents(events);
+
+        TitleSearchPage page = eventRepository.searchTitles("jazz", 0, 10);
+        List<String> titles = page.getItems().stream().map(match -> match.getEvent().getTitle()).toList();
+        assertEquals(4, titles.size(), "The last word should also match as a prefix");
+        assertTrue(titles.contains("Jazzercise Morning"), "Prefix matches should be included");
+        assertEquals("Summer Jazz Jazz Festival", titles.get(0), "More occurrences should rank higher by BM25");
+        assertNull(page.getNextOffset(), "A single page should have no next offset");
+
+        TitleMatch escaped = page.getItems().stream()
+                .filter(match -> match.getEvent().getTitle().startsWith("Jazz &")).findFirst().orElseThrow();
+        assertEquals("<mark>Jazz</mark> &amp; Blues &lt;Live&gt;", escaped.getHighlight(),
+                "Matches should be marked and the rest of the title escaped");
+
+        assertEquals(List.of("Jazz Night"), eventRepository.searchTitles("night ja", 0, 10).getItems().stream()
+                .map(match -> match.getEvent().getTitle()).toList(), "Every word should have to match");
+
+        TitleSearchPage first = eventRepository.searchTitles("jazz", 0, 3);
+        assertEquals(3, first.getNextOffset(), "A full page should point at the next offset");
+        assertEquals(1, eventRepository.searchTitles("jazz", first.getNextOffset(), 3).getItems().size(),
+                "The next page should hold the rest");
+
+        Event renamed = eventRepository.getEventById(events.get(3).getId());
+        renamed.setTitle("Jazz Rock Night");
+        eventRepository.updateEvent(renamed.getId(), renamed);
+        eventRepository.deleteEvent(events.get(0).getId());
+        assertEquals(4, eventRepository.searchTitles("jazz", 0, 10).getItems().size(),
+                "Updates and deletes should be reflected in the index");
+
+        assertTrue(eventRepository.searchTitles("\"OR* (", 0, 10).getItems().isEmpty(),
+                "FTS5 syntax in the input should be treated as words or ignored");
+    }
+
+    @Test
+    public void testRecordMapperMatchesFetchInto() throws SQLException {
+        Event event = new Event("Mapped Event", 250, 1900000000, 1900086400);
+        eventRepository.insertEvent(event);
+
+        Event mapped = eventRepository.getEventById(event.getId());
+        Event reflected = dslContext.selectFrom(EVENTS).where(EVENTS.ID.eq(event.getId())).fetchOneInto(Event.class);
+
+        assertEquals(reflected.getId(), mapped.getId(), "The mapped id should match fetchInto");
+        assertEquals(reflected.toString(), mapped.toString(), "Every mapped column should match fetchInto");
+        assertEquals(0, mapped.getUpdatedAt(), "A NULL updated_at should map to 0");
+    }
+
     @Test
     public void testUpdateEvent() throws SQLException {
         Event event = new Event();
@@ -128,4 +294,395 @@ public class EventRepositoryTest {
             eventRepository.getEventById(event.getId());
         }, "Fetching the deleted event should throw CustomNoDataFoundException");
     }
+
+    @Test
+    public void testMissIsEmptyNotThrown() throws Exception {
+        Event event = new Event("Found Event", 100, 1900000000, 1900086400);
+        eventRepository.insertEvent(event);
+
+        assertEquals("Found Event", eventRepository.findEventById(event.getId()).orElseThrow().getTitle());
+        assertTrue(eventRepository.findEventById(987654).isEmpty(), "A miss should come back empty");
+
+        CustomNoDataFoundException miss = assertThrows(CustomNoDataFoundException.class,
+                () -> eventRepository.getEventById(987654));
+        assertEquals(0, miss.getStackTrace().length, "Not-found exceptions should not capture a stack trace");
+
+        CustomNoDataFoundException deleteMiss = assertThrows(CustomNoDataFoundException.class,
+                () -> eventRepository.deleteEvent(987654));
+        assertEquals(0, deleteMiss.getStackTrace().length, "Deleting a missing event should not capture one either");
+        assertNull(deleteMiss.getCause(), "Nor wrap an exception that did");
+    }
+
+    @Test
+    public void testSoftDeleteHidesTombstonesUntilPurged() throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (String title : List.of("Kept Concert", "Deleted Concert", "Batch Deleted Concert")) {
+            events.add(new Event(title, 100, 1900000000, 1900086400));
+        }
+        eventRepository.insertEvents(events);
+        int deletedId = events.get(1).getId();
+
+        eventRepository.deleteEvent(deletedId);
+        assertTrue(eventRepository.deleteEvents(List.of(events.get(2).getId(), deletedId)).get(1).getMessage()
+                .contains("No event found"), "A tombstone should not be deleted twice");
+        assertEquals(2, dslContext.fetchCount(EVENTS, EVENTS.DELETED_AT.isNotNull()),
+                "Deleted events should stay behind as tombstones");
+
+        List<Integer> kept = List.of(events.get(0).getId());
+        assertThrows(CustomNoDataFoundException.class, () -> eventRepository.getEventById(deletedId),
+                "A tombstone should not be found by id");
+        assertEquals(kept, eventRepository.getEvents(null, 10).getItems().stream().map(Event::getId).toList(),
+                "Listing should skip tombstones");
+        assertEquals(kept, eventRepository.searchEvents(new EventSearchCriteria(), null, 10).getItems().stream()
+                .map(Event::getId).toList(), "Search should skip tombstones");
+        assertEquals(kept, eventRepository.searchTitles("concert", 0, 10).getItems().stream()
+                .map(match -> match.getEvent().getId()).toList(), "Title search should skip tombstones");
+        assertEquals(kept, eventRepository.getEventsOverlapping(1900000000, 1900000001, null, 10).getItems()
+                .stream().map(Event::getId).toList(), "Overlap queries should skip tombstones");
+        List<Event> exported = new ArrayList<>();
+        eventRepository.exportEvents(new EventSink() {
+            @Override
+            public void write(Event event) {
+                exported.add(event);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        assertEquals(kept, exported.stream().map(Event::getId).toList(), "Exports should skip tombstones");
+        assertEquals(1, eventRepository.getStatusTotals().stream().mapToLong(StatusTotal::getCount).sum(),
+                "Aggregates should drop soft-deleted events");
+
+        Event tombstone = new Event("Deleted Concert", 200, 1900000000, 1900086400);
+        tombstone.setStatus("started");
+        assertThrows(CustomNoDataFoundException.class, () -> eventRepository.updateEvent(deletedId, tombstone),
+                "A tombstone should not be updatable");
+
+        TableVersion version = eventRepository.getEventsVersion();
+        int purged = dslContext.transactionResult(configuration -> eventRepository.purgeDeletedEvents(
+                configuration.dsl(), Integer.MAX_VALUE, 100));
+        assertEquals(2, purged, "Both tombstones should be purged");
+        assertEquals(1, dslContext.fetchCount(EVENTS), "Only the live event should be left");
+        assertEquals(version.getVersion(), eventRepository.getEventsVersion().getVersion(),
+                "Purging tombstones should not invalidate cached lists");
+        assertEquals(1, eventRepository.getStatusTotals().stream().mapToLong(StatusTotal::getCount).sum(),
+                "Purging should not count the deletes twice");
+        dslContext.execute("INSERT INTO events_fts (events_fts) VALUES ('integrity-check')");
+    }
+
+    @Test
+    public void testGetEventsKeysetPagination() throws SQLException {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        // Two events share a start date so the id tiebreaker is exercised
+        int[] startOffsets = { 300, 0, 100, 100, 200 };
+        for (int i = 0; i < startOffsets.length; i++) {
+            Event event = new Event("Test Event " + i, 100, (int) startOfDayInSeconds + startOffsets[i],
+                    (int) startOfDayInSeconds + 86400);
+            eventRepository.insertEvent(event);
+        }
+
+        List<Event> seen = new ArrayList<>();
+        EventCursor cursor = null;
+        int pages = 0;
+        do {
+            EventPage page = eventRepository.getEvents(cursor, 2);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor() == null ? null : EventCursor.decode(page.getNextCursor());
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages, "Five events with a page size of two should span three pages");
+        assertEquals(5, seen.size(), "Every event should be returned exactly once");
+        for (int i = 1; i < seen.size(); i++) {
+            Event previous = seen.get(i - 1);
+            Event current = seen.get(i);
+            assertTrue(previous.getStartDate() < current.getStartDate()
+                    || (previous.getStartDate() == current.getStartDate() && previous.getId() < current.getId()),
+                    "Events should be ordered by (startDate, id)");
+        }
+
+        dslContext.execute("DELETE FROM events");
+        EventPage empty = eventRepository.getEvents(null, 2);
+        assertTrue(empty.getItems().isEmpty(), "An empty table should give an empty page");
+        assertNull(empty.getNextCursor(), "An empty page should have no next cursor");
+    }
+
+    @Test
+    public void testGetEventsUsesStartDateIndex() {
+        String plan = dslContext.fetch("EXPLAIN QUERY PLAN SELECT * FROM events "
+                + "WHERE deleted_at IS NULL AND (start_date, id) > (0, 0) ORDER BY start_date, id LIMIT 21")
+                .getValues(3, String.class)
+                .toString();
+
+        assertTrue(plan.contains("idx_events_start_date"), "Paging should be served by idx_events_start_date: " + plan);
+        assertFalse(plan.contains("TEMP B-TREE"), "Paging should not need a separate sort: " + plan);
+    }
+
+    @Test
+    public void testGetEventsOverlappingMatchesLinearScan() throws SQLException {
+        int base = 1900000000;
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            // Mixed lengths, shared start dates and touching boundaries
+            int start = base + (i % 20) * 3600;
+            events.add(new Event("Interval Event " + i, 100, start, start + 1800 + (i % 7) * 7200));
+        }
+        eventRepository.insertEvents(events);
+
+        int from = base + 10 * 3600;
+        int to = base + 15 * 3600;
+        List<Integer> expected = events.stream()
+                .filter(event -> event.getStartDate() < to && event.getEndDate() > from)
+                .sorted((a, b) -> a.getStartDate() != b.getStartDate()
+                        ? Integer.compare(a.getStartDate(), b.getStartDate())
+                        : Integer.compare(a.getId(), b.getId()))
+                .map(Event::getId)
+                .toList();
+
+        List<Integer> seen = new ArrayList<>();
+        EventCursor cursor = null;
+        do {
+            EventPage page = eventRepository.getEventsOverlapping(from, to, cursor, 7);
+            page.getItems().forEach(event -> seen.add(event.getId()));
+            cursor = page.getNextCursor() == null ? null : EventCursor.decode(page.getNextCursor());
+        } while (cursor != null);
+        assertEquals(expected, seen, "Paging the index should return the same events as a linear scan");
+
+        Event moved = eventRepository.getEventById(expected.get(0));
+        moved.setStartDate(base - 7200);
+        moved.setEndDate(base - 3600);
+        eventRepository.updateEvent(moved.getId(), moved);
+        eventRepository.deleteEvent(expected.get(1));
+        List<Integer> remaining = eventRepository.getEventsOverlapping(from, to, null, 100).getItems().stream()
+                .map(Event::getId).toList();
+        assertEquals(expected.subList(2, expected.size()), remaining,
+                "Updates and deletes should be reflected in the index");
+    }
+
+    @Test
+    public void testGetEventsOverlappingUsesIntervalIndex() {
+        for (EventCursor cursor : new EventCursor[] { null, new EventCursor(1900000000, 5) }) {
+            String sql = dslContext.renderInlined(eventRepository.buildOverlapQuery(1900000000, 1900086400, cursor, 21));
+            List<String> plan = dslContext.fetch("EXPLAIN QUERY PLAN " + sql).getValues(3, String.class);
+
+            // 2:<constraints> is a constrained descent of the tree, a bare 2: would be a full scan
+            assertTrue(plan.get(0).matches("SCAN events_rtree VIRTUAL TABLE INDEX 2:\\S+"),
+                    "Bounds on both ends should drive an R*Tree descent: " + plan);
+            assertTrue(plan.stream().anyMatch(step -> step.contains("SEARCH events USING INTEGER PRIMARY KEY")),
+                    "Events should be fetched by rowid: " + plan);
+        }
+    }
+
+    @Test
+    public void testCompleteEventsOnlyTouchesEndedPendingEvents() throws SQLException {
+        int now = 1900000000;
+        List<Event> events = new ArrayList<>();
+        for (int end : new int[] { now - 10, now, now + 10, now - 20 }) {
+            events.add(new Event("Lifecycle Event " + end, 100, end - 3600, end));
+        }
+        eventRepository.insertEvents(events);
+        Event done = eventRepository.getEventById(events.get(3).getId());
+        done.setStatus("completed");
+        eventRepository.updateEvent(done.getId(), done);
+
+        assertEquals(List.of(events.get(0).getId(), events.get(1).getId()),
+                new ArrayList<>(eventRepository.getPendingEnds(now + 10, 100).keySet()),
+                "Pending ends should skip completed events, soonest first");
+
+        List<Event> completed = dslContext.transactionResult(configuration -> eventRepository.completeEvents(
+                configuration.dsl(), events.stream().map(Event::getId).toList(), now));
+        assertEquals(List.of(events.get(0).getId(), events.get(1).getId()),
+                completed.stream().map(Event::getId).sorted().toList(),
+                "Only pending events that have ended should be completed");
+        assertTrue(completed.stream().allMatch(event -> "completed".equals(event.getStatus()) && event.getVersion() == 1),
+                "Completed events should come back with their new status and version");
+        assertEquals(3, eventRepository.getStatusTotals().stream()
+                .filter(total -> total.getStatus().equals("completed")).findFirst().orElseThrow().getCount(),
+                "Aggregates should follow the transition");
+
+        String plan = dslContext.fetch("EXPLAIN QUERY PLAN "
+                + dslContext.renderInlined(eventRepository.buildPendingEndsQuery(now, 100)))
+                .getValues(3, String.class).toString();
+        assertTrue(plan.contains("idx_events_pending_end_date"), "Pending ends should use the partial index: " + plan);
+    }
+
+    @Test
+    public void testSearchEventsFilters() throws SQLException {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        for (int i = 0; i < 6; i++) {
+            Event event = new Event("Test Event " + i, 100 * (i + 1), (int) startOfDayInSeconds + i * 3600,
+                    (int) startOfDayInSeconds + 86400 + i * 3600);
+            eventRepository.insertEvent(event);
+            if (i % 2 == 0) {
+                event.setStatus("paused");
+                eventRepository.updateEvent(event.getId(), event);
+            }
+        }
+
+        EventSearchCriteria criteria = new EventSearchCriteria();
+        criteria.setStatus("paused");
+        criteria.setMinPrice(200);
+        criteria.setSort("price");
+        criteria.setOrder("desc");
+
+        List<Event> events = eventRepository.searchEvents(criteria, null, 10).getItems();
+        assertEquals(2, events.size(), "Only paused events priced 200 or more should match");
+        assertEquals(500, events.get(0).getPrice(), "Results should be sorted by price descending");
+        assertEquals(300, events.get(1).getPrice(), "Results should be sorted by price descending");
+
+        criteria = new EventSearchCriteria();
+        criteria.setFrom((int) startOfDayInSeconds + 3600);
+        criteria.setTo((int) startOfDayInSeconds + 86400 + 4 * 3600);
+
+        EventPage first = eventRepository.searchEvents(criteria, null, 2);
+        EventPage second = eventRepository.searchEvents(criteria, EventCursor.decode(first.getNextCursor()), 2);
+        assertEquals(2, first.getItems().size(), "The first page should be full");
+        assertEquals(2, second.getItems().size(), "The window should hold exactly four events");
+        assertNull(second.getNextCursor(), "The last page should not carry a cursor");
+        assertTrue(first.getItems().get(1).getStartDate() < second.getItems().get(0).getStartDate(),
+                "The second page should continue after the first");
+    }
+
+    @Test
+    public void testSearchEventsUsesIndexForEveryFilterCombination() {
+        // Bit i of the mask toggles filter i: status, price range, from, to
+        for (int mask = 1; mask < 16; mask++) {
+            for (String sort : new String[] { "startDate", "endDate", "price" }) {
+                EventSearchCriteria criteria = new EventSearchCriteria();
+                criteria.setSort(sort);
+                if ((mask & 1) != 0) {
+                    criteria.setStatus("started");
+                }
+                if ((mask & 2) != 0) {
+                    criteria.setMinPrice(100);
+                    criteria.setMaxPrice(500);
+                }
+                if ((mask & 4) != 0) {
+                    criteria.setFrom(1000);
+                }
+                if ((mask & 8) != 0) {
+                    criteria.setTo(2000);
+                }
+
+                String sql = dslContext.renderInlined(eventRepository.buildSearchQuery(criteria, null, 21));
+                String plan = dslContext.fetch("EXPLAIN QUERY PLAN " + sql)
+                        .getValues(3, String.class)
+                        .toString();
+
+                assertTrue(plan.contains("SEARCH events USING INDEX"),
+                        "Search should range-scan an index for " + criteria + ": " + plan);
+            }
+        }
+    }
+
+    @Test
+    public void testInsertEventsReportsPerRowTriggerErrors() {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            events.add(new Event("Test Event " + i, 100, (int) startOfDayInSeconds, (int) startOfDayInSeconds + 86400));
+        }
+        // Rejected by validate_events_before_insert, in the middle of the second chunk
+        events.get(700).setTitle("no");
+
+        List<BatchItemResult> results = eventRepository.insertEvents(events);
+
+        assertEquals(1200, results.size(), "Every event should have a result");
+        assertEquals("error", results.get(700).getStatus(), "The short title should be rejected");
+        assertTrue(results.get(700).getMessage().contains("events.title"),
+                "The trigger message should be reported: " + results.get(700).getMessage());
+        assertEquals(1199, results.stream().filter(BatchItemResult::isSuccess).count(),
+                "All other events should be inserted");
+
+        for (int i : new int[] { 0, 699, 701, 1199 }) {
+            assertEquals(i, results.get(i).getIndex(), "Results should be in request order");
+            assertEquals("Test Event " + i, eventRepository.getEventById(results.get(i).getId()).getTitle(),
+                    "Returned ids should belong to the matching event");
+        }
+    }
+
+    @Test
+    public void testInsertEventsFailsOnErrorsThatAreNotConstraints() {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(new Event("Test Event " + i, 100, (int) startOfDayInSeconds, (int) startOfDayInSeconds + 86400));
+        }
+        // abs() of the smallest integer fails with a plain SQLITE_ERROR, not a constraint
+        dslContext.execute("CREATE TRIGGER fail_batch_insert BEFORE INSERT ON events "
+                + "WHEN NEW.title = 'Test Event 1' BEGIN SELECT abs(-9223372036854775808); END");
+        try {
+            assertThrows(RuntimeException.class, () -> eventRepository.insertEvents(events),
+                    "Only constraint errors should be reported per row");
+        } finally {
+            dslContext.execute("DROP TRIGGER fail_batch_insert");
+        }
+        assertEquals(0, dslContext.fetchCount(EVENTS), "The failed batch should be rolled back");
+    }
+
+    @Test
+    public void testUpdateAndDeleteEventsBatch() {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Event event = new Event("Test Event " + i, 100, (int) startOfDayInSeconds, (int) startOfDayInSeconds + 86400);
+            event.setStatus("started");
+            events.add(event);
+        }
+        eventRepository.insertEvents(events);
+
+        events.get(0).setTitle("Updated Event");
+        events.get(1).setPrice(-1);
+        Event missing = new Event(Integer.MAX_VALUE, "Missing Event", 100, "started", (int) startOfDayInSeconds,
+                (int) startOfDayInSeconds + 86400, 0, 0);
+        List<Event> updates = List.of(events.get(0), events.get(1), missing);
+
+        List<BatchItemResult> updated = eventRepository.updateEvents(updates);
+        assertTrue(updated.get(0).isSuccess(), "A valid update should succeed");
+        assertTrue(updated.get(1).getMessage().contains("events.price"), "The price trigger should reject the row");
+        assertEquals("No event found with id: " + Integer.MAX_VALUE, updated.get(2).getMessage());
+        assertEquals("Updated Event", eventRepository.getEventById(events.get(0).getId()).getTitle());
+
+        List<BatchItemResult> deleted = eventRepository.deleteEvents(
+                List.of(events.get(0).getId(), Integer.MAX_VALUE, events.get(2).getId()));
+        assertTrue(deleted.get(0).isSuccess(), "An existing event should be deleted");
+        assertFalse(deleted.get(1).isSuccess(), "A missing event should be reported");
+        assertTrue(deleted.get(2).isSuccess(), "An existing event should be deleted");
+        assertEquals(1, eventRepository.getEvents().size(), "Only the event that was not deleted should remain");
+    }
+
+    @Test
+    public void testUpdateEventsAppliesEachRowOnceAroundAFailure() {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Event event = new Event("Test Event " + i, 100, (int) startOfDayInSeconds, (int) startOfDayInSeconds + 86400);
+            event.setStatus("started");
+            events.add(event);
+        }
+        eventRepository.insertEvents(events);
+        int version = eventRepository.getEventById(events.get(0).getId()).getVersion();
+
+        events.forEach(event -> event.setPrice(200));
+        // Rejected by the price trigger after the rows ahead of it were applied
+        events.get(2).setPrice(-1);
+
+        List<BatchItemResult> results = eventRepository.updateEvents(events);
+
+        assertEquals("error", results.get(2).getStatus(), "The negative price should be rejected");
+        for (int i : new int[] { 0, 1, 3, 4 }) {
+            assertTrue(results.get(i).isSuccess(), "The other updates should succeed");
+            Event updated = eventRepository.getEventById(events.get(i).getId());
+            assertEquals(200, updated.getPrice());
+            assertEquals(version + 1, updated.getVersion(), "Each row should be updated exactly once");
+        }
+        assertEquals(version, eventRepository.getEventById(events.get(2).getId()).getVersion());
+    }
 }
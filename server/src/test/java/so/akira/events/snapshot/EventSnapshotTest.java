@@ -0,0 +1,193 @@
+package so.akira.events.snapshot;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import so.akira.events.models.BatchItemResult;
+import so.akira.events.models.Event;
+import so.akira.events.models.EventCursor;
+import so.akira.events.models.EventPage;
+import so.akira.events.models.EventPatch;
+import so.akira.events.models.EventSearchCriteria;
+import so.akira.events.repositories.EventRepository;
+import so.akira.events.services.EventService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static so.akira.events.db.tables.Events.EVENTS;
+
+@SpringBootTest(properties = { "events.snapshot.enabled=true", "events.snapshot.refresh-ms=50" })
+@ActiveProfiles("test")
+public class EventSnapshotTest {
+
+    private static final int START = 1900000000;
+    private static final String[] STATUSES = { "started", "paused", "completed" };
+
+    @Autowired
+    private EventSnapshot eventSnapshot;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private DSLContext dslContext;
+
+    private void awaitCurrent() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!eventSnapshot.isCurrent()) {
+            assertTrue(System.currentTimeMillis() < deadline, "The snapshot should catch up with SQLite");
+            Thread.sleep(20);
+        }
+    }
+
+    private List<Integer> seed(String prefix, int count, int start) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Few distinct keys, so plenty of ties for the id to break
+            Event event = new Event(prefix + " " + (i % 7), 100 + i % 13, start + (i % 17) * 3600,
+                    start + 86400 + (i % 11) * 3600);
+            event.setStatus(STATUSES[i % 3]);
+            events.add(event);
+        }
+        return eventService.insertEvents(events).stream().map(BatchItemResult::getId).toList();
+    }
+
+    // Cheapest first among the events seeded at start
+    private static EventSearchCriteria cheapest(int start) {
+        return criteria(null, null, null, start, start + 2 * 86400, "price", "asc");
+    }
+
+    private static EventSearchCriteria criteria(String status, Integer minPrice, Integer maxPrice, Integer from,
+            Integer to, String sort, String order) {
+        EventSearchCriteria criteria = new EventSearchCriteria();
+        criteria.setStatus(status);
+        criteria.setMinPrice(minPrice);
+        criteria.setMaxPrice(maxPrice);
+        criteria.setFrom(from);
+        criteria.setTo(to);
+        criteria.setSort(sort);
+        criteria.setOrder(order);
+        return criteria;
+    }
+
+    // Walks every page of both and compares them item by item
+    private static void assertSamePages(Function<EventCursor, EventPage> expected,
+            Function<EventCursor, EventPage> actual, String query) {
+        EventCursor cursor = null;
+        do {
+            EventPage want = expected.apply(cursor);
+            EventPage got = actual.apply(cursor);
+            assertEquals(want.getItems().size(), got.getItems().size(), "Page size for " + query);
+            for (int i = 0; i < want.getItems().size(); i++) {
+                Event a = want.getItems().get(i);
+                Event b = got.getItems().get(i);
+                String row = query + " at " + a.getId();
+                assertEquals(a.getId(), b.getId(), "Order for " + query);
+                assertEquals(a.getTitle(), b.getTitle(), row);
+                assertEquals(a.getPrice(), b.getPrice(), row);
+                assertEquals(a.getStatus(), b.getStatus(), row);
+                assertEquals(a.getStartDate(), b.getStartDate(), row);
+                assertEquals(a.getEndDate(), b.getEndDate(), row);
+                assertEquals(a.getCreatedAt(), b.getCreatedAt(), row);
+                assertEquals(a.getUpdatedAt(), b.getUpdatedAt(), row);
+                assertEquals(a.getVersion(), b.getVersion(), row);
+            }
+            assertEquals(want.getNextCursor(), got.getNextCursor(), "Cursor for " + query);
+            cursor = want.getNextCursor() == null ? null : EventCursor.decode(want.getNextCursor());
+        } while (cursor != null);
+    }
+
+    @Test
+    public void testAnswersMatchSqlite() throws Exception {
+        List<Integer> ids = seed("Snapshot Event", 300, START);
+
+        // Every kind of write the snapshot has to follow
+        Event replaced = new Event("Replaced Event", 999, "paused", START + 7200, START + 90000, 0);
+        eventService.updateEvent(ids.get(0), replaced);
+        EventPatch patch = new EventPatch();
+        patch.setPrice(1);
+        eventService.patchEvent(ids.get(1), patch, null);
+        eventService.deleteEvent(ids.get(2));
+        eventService.deleteEvents(ids.subList(3, 20));
+        Event single = new Event("Single Event", 500, START + 3600, START + 86400);
+        eventService.insertEvent(single);
+
+        awaitCurrent();
+
+        List<EventSearchCriteria> searches = List.of(
+                criteria(null, null, null, null, null, "startDate", "asc"),
+                criteria(null, null, null, null, null, "startDate", "desc"),
+                criteria("paused", null, null, null, null, "price", "asc"),
+                criteria("completed", 105, 110, null, null, "endDate", "desc"),
+                criteria(null, null, null, START + 3 * 3600, START + 86400 + 5 * 3600, "price", "desc"),
+                criteria("started", 0, 1000, START, null, "endDate", "asc"));
+        for (EventSearchCriteria search : searches) {
+            assertSamePages(cursor -> eventRepository.searchEvents(search, cursor, 7),
+                    cursor -> eventSnapshot.searchEvents(search, cursor, 7).orElseThrow(), search.toString());
+        }
+
+        assertSamePages(cursor -> eventRepository.getEvents(cursor, 25),
+                cursor -> eventSnapshot.getEvents(cursor, 25).orElseThrow(), "getEvents");
+
+        // Past the last event both answer an empty page rather than a miss
+        EventCursor end = new EventCursor(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        for (EventPage page : List.of(eventRepository.getEvents(end, 25), eventSnapshot.getEvents(end, 25).orElseThrow())) {
+            assertTrue(page.getItems().isEmpty(), "A page past the end should be empty");
+            assertNull(page.getNextCursor(), "A page past the end should have no next cursor");
+        }
+
+        int from = START + 5 * 3600;
+        int to = START + 6 * 3600;
+        assertSamePages(cursor -> eventRepository.getEventsOverlapping(from, to, cursor, 9),
+                cursor -> eventSnapshot.getEventsOverlapping(from, to, cursor, 9).orElseThrow(), "overlapping");
+
+        assertTrue(eventSnapshot.getTitles() < eventSnapshot.getSize(), "Repeated titles should share a dictionary entry");
+    }
+
+    @Test
+    public void testReadsNeverSeeAnOlderVersionThanSqlite() throws Exception {
+        List<Integer> ids = seed("Consistent Event", 50, START + 10 * 86400);
+        awaitCurrent();
+
+        EventSearchCriteria cheapest = cheapest(START + 10 * 86400);
+        long servedBefore = eventSnapshot.getServed();
+        assertNotEquals(ids.get(10), eventService.searchEvents(cheapest, null, 1).getItems().get(0).getId());
+        assertTrue(eventSnapshot.getServed() > servedBefore, "A current snapshot should answer");
+
+        // Right after the write returns, whichever of the two answers has to see it
+        EventPatch patch = new EventPatch();
+        patch.setPrice(1);
+        eventService.patchEvent(ids.get(10), patch, null);
+        Event first = eventService.searchEvents(cheapest, null, 1).getItems().get(0);
+        assertEquals(ids.get(10), first.getId(), "The patched event should come first at once");
+        assertEquals(1, first.getPrice());
+    }
+
+    @Test
+    public void testWritesBehindItsBackTriggerAReload() throws Exception {
+        List<Integer> ids = seed("Reloaded Event", 20, START + 20 * 86400);
+        awaitCurrent();
+        long reloadsBefore = eventSnapshot.getReloads();
+
+        dslContext.update(EVENTS).set(EVENTS.PRICE, 2).where(EVENTS.ID.eq(ids.get(5))).execute();
+
+        EventSearchCriteria cheapest = cheapest(START + 20 * 86400);
+        assertTrue(eventSnapshot.searchEvents(cheapest, null, 1).isEmpty(),
+                "A snapshot behind SQLite should not answer");
+        assertEquals(ids.get(5), eventService.searchEvents(cheapest, null, 1).getItems().get(0).getId(),
+                "The fallback should see the write");
+
+        awaitCurrent();
+        assertTrue(eventSnapshot.getReloads() > reloadsBefore, "An unreported write should make it reload");
+        assertEquals(ids.get(5), eventSnapshot.searchEvents(cheapest, null, 1).orElseThrow().getItems().get(0).getId());
+    }
+}
@@ -0,0 +1,116 @@
+package so.akira.events.writer;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import so.akira.events.config.JooqConfig;
+import so.akira.events.config.JooqTestConfig;
+import so.akira.events.exceptions.SQLConstraintViolationException;
+import so.akira.events.models.Event;
+import so.akira.events.repositories.EventRepository;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = { JooqTestConfig.class, JooqConfig.class, EventRepository.class, EventWriter.class },
+        properties = { "events.writer.max-batch-size=64", "events.writer.max-linger-ms=50" })
+@ActiveProfiles("test")
+public class EventWriterTest {
+
+    @Autowired
+    private EventWriter eventWriter;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private DSLContext dslContext;
+
+    @BeforeEach
+    public void setUp() {
+        dslContext.execute("DELETE FROM events");
+    }
+
+    private Event newEvent(String title) {
+        long startOfDayInSeconds = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        return new Event(title, 100, (int) startOfDayInSeconds, (int) startOfDayInSeconds + 86400);
+    }
+
+    @Test
+    public void testConcurrentWritesShareCommits() {
+        long commitsBefore = eventWriter.getCommits();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Event event = newEvent("Test Event " + i);
+            futures.add(eventWriter.submit(tx -> {
+                eventRepository.insertEvent(tx, event);
+                return event.getId();
+            }));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        futures.forEach(future -> ids.add(future.join()));
+
+        assertEquals(50, ids.size(), "Every write should get its own id");
+        assertEquals(50, dslContext.fetchCount(dslContext.selectFrom("events")), "Every write should be committed");
+        assertTrue(eventWriter.getCommits() - commitsBefore < 50, "Queued writes should be grouped into fewer commits");
+        assertTrue(eventWriter.getMaxCommitSize() > 1, "At least one commit should hold several writes");
+    }
+
+    @Test
+    public void testFailedWriteDoesNotFailItsGroup() {
+        Event valid = newEvent("Test Event");
+        Event invalid = newEvent("no");
+
+        CompletableFuture<Object> first = eventWriter.submit(tx -> {
+            eventRepository.insertEvent(tx, valid);
+            return null;
+        });
+        CompletableFuture<Object> second = eventWriter.submit(tx -> {
+            eventRepository.insertEvent(tx, invalid);
+            return null;
+        });
+
+        first.join();
+        CompletionException e = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(SQLConstraintViolationException.class, e.getCause(), "The trigger error should be surfaced");
+        assertEquals("Test Event", eventRepository.getEventById(valid.getId()).getTitle(),
+                "The valid write of the group should be committed");
+    }
+
+    @Test
+    public void testFailedWriteIsRolledBackOnItsOwn() {
+        Event kept = newEvent("Kept Event");
+        Event halfWritten = newEvent("Half Written Event");
+
+        CompletableFuture<Object> first = eventWriter.submit(tx -> {
+            eventRepository.insertEvent(tx, kept);
+            return null;
+        });
+        CompletableFuture<Object> second = eventWriter.submit(tx -> {
+            eventRepository.insertEvent(tx, halfWritten);
+            throw new IllegalStateException("Failed after its insert");
+        });
+
+        first.join();
+        CompletionException e = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause(), "The write's own exception should be surfaced");
+        assertEquals(0, dslContext.fetchCount(dslContext.selectFrom("events").where("title = ?", "Half Written Event")),
+                "The failed write's insert should be rolled back");
+        assertEquals(1, dslContext.fetchCount(dslContext.selectFrom("events").where("title = ?", "Kept Event")),
+                "The rest of the group should still be committed");
+    }
+}